@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point for benchmarks.jar. Runs JMH with the given arguments, but writes
+ * results as JSON (to jmh-result.json) unless a result format is passed, so
+ * every run leaves a machine-readable file that can be compared across releases.
+ * <br/>
+ * <code>
+ * java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]
+ * </code>
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(List.of(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.addAll(0, List.of("-rf", "json", "-rff", "jmh-result.json"));
+        }
+        Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.openjdk.jmh.annotations.*;
+import server.websocket.ConnectionManager;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of one game's messages through ConnectionManager.broadcast to every
+ * session watching that game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    private static final int GAME_ID = 1;
+
+    @Param({"2", "10", "100"})
+    public int sessions;
+
+    private final AtomicLong charsSent = new AtomicLong();
+    private ConnectionManager connections;
+    private LoadGameMessage loadGame;
+    private NotificationMessage notification;
+
+    @Setup
+    public void setup() {
+        connections = new ConnectionManager();
+        for (int i = 0; i < sessions; i++) {
+            Session session = FakeSession.create(charsSent, 0);
+            connections.add(GAME_ID, session);
+        }
+        loadGame = new LoadGameMessage(Positions.middlegame());
+        notification = new NotificationMessage("white moved e2 to e4");
+    }
+
+    @Benchmark
+    public long broadcastLoadGame() throws Exception {
+        connections.broadcast(GAME_ID, null, loadGame);
+        return charsSent.get();
+    }
+
+    @Benchmark
+    public long broadcastNotification() throws Exception {
+        connections.broadcast(GAME_ID, null, notification);
+        return charsSent.get();
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation and game status checks, the per-move CPU cost of
+ * WebSocketHandler.makeMove.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    private ChessGame start;
+    private ChessGame middlegame;
+    private ChessGame checkNotMate;
+    private ChessGame checkmate;
+
+    @Setup
+    public void setup() {
+        start = new ChessGame();
+        middlegame = Positions.middlegame();
+        checkNotMate = Positions.checkNotMate();
+        checkmate = Positions.checkmate();
+    }
+
+    @Benchmark
+    public void validMovesStart(Blackhole bh) {
+        allValidMoves(start, bh);
+    }
+
+    @Benchmark
+    public void validMovesMiddlegame(Blackhole bh) {
+        allValidMoves(middlegame, bh);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateInCheck() {
+        return checkNotMate.isInCheckmate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateMiddlegame() {
+        return middlegame.isInStalemate(middlegame.getTeamTurn());
+    }
+
+    private static void allValidMoves(ChessGame game, Blackhole bh) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition pos = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(pos);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    bh.consume(game.validMoves(pos));
+                }
+            }
+        }
+    }
+}
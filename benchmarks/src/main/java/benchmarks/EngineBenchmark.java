@@ -0,0 +1,44 @@
+package benchmarks;
+
+import chess.ChessGame;
+import engine.Engine;
+import engine.SearchLimits;
+import engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-depth searches, the CPU cost of one bot move at a given strength.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"4", "5"})
+    public int depth;
+
+    private final Engine engine = new Engine(Runnable::run);
+    private ChessGame start;
+    private ChessGame middlegame;
+
+    @Setup
+    public void setup() {
+        start = new ChessGame();
+        middlegame = Positions.middlegame();
+    }
+
+    @Benchmark
+    public SearchResult searchStart() {
+        return engine.search(start, SearchLimits.depth(depth));
+    }
+
+    @Benchmark
+    public SearchResult searchMiddlegame() {
+        return engine.search(middlegame, SearchLimits.depth(depth));
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An open websocket Session that discards what is sent to it, optionally after
+ * a delay to stand in for a slow client. Only the methods ConnectionManager
+ * uses are implemented.
+ */
+final class FakeSession {
+
+    private FakeSession() {
+    }
+
+    static Session create(AtomicLong charsSent, long sendDelayNanos) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(FakeSession.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        if (sendDelayNanos > 0) {
+                            LockSupport.parkNanos(sendDelayNanos);
+                        }
+                        charsSent.addAndGet(((String) args[0]).length());
+                        if (args.length > 1 && args[1] instanceof WriteCallback callback) {
+                            callback.writeSuccess();
+                        }
+                        return null;
+                    }
+                    return identity(proxy, method.getName(), args);
+                });
+        return (Session) Proxy.newProxyInstance(FakeSession.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> true;
+                    case "close", "disconnect" -> null;
+                    default -> identity(proxy, method.getName(), args);
+                });
+    }
+
+    private static Object identity(Object proxy, String method, Object[] args) {
+        return switch (method) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "FakeSession@" + Integer.toHexString(System.identityHashCode(proxy));
+            default -> throw new UnsupportedOperationException(method);
+        };
+    }
+}
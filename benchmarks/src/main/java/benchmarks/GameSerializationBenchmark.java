@@ -0,0 +1,76 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round-trips of a ChessGame, done the way MySQLGameDataAccess does them
+ * (a new Gson per call) and with a shared Gson for comparison, and the FEN
+ * and binary codec round-trips as the compact alternatives.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameSerializationBenchmark {
+
+    private final Gson sharedGson = new Gson();
+    private ChessGame game;
+    private String gameJson;
+    private String gameFen;
+    private byte[] gameBinary;
+
+    @Setup
+    public void setup() {
+        game = Positions.middlegame();
+        gameJson = sharedGson.toJson(game);
+        gameFen = game.toFen();
+        gameBinary = GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public String writeGameNewGson() {
+        return new Gson().toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame readGameNewGson() {
+        return new Gson().fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public String writeGameSharedGson() {
+        return sharedGson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame readGameSharedGson() {
+        return sharedGson.fromJson(gameJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public String writeGameFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame readGameFen() {
+        return ChessGame.fromFen(gameFen);
+    }
+
+    @Benchmark
+    public byte[] writeGameBinary() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame readGameBinary() {
+        return GameCodec.decode(gameBinary);
+    }
+}
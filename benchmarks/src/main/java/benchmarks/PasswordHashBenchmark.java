@@ -0,0 +1,71 @@
+package benchmarks;
+
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDataAccess;
+import dataaccess.UserDao;
+import model.AuthData;
+import model.UserData;
+import org.openjdk.jmh.annotations.*;
+import service.UserService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService register and login, which are dominated by BCrypt hashing and
+ * checking. In-memory DAOs keep the database out of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    private static final UserData USER = new UserData("bench", "password", "bench@email.com");
+
+    private UserService userService;
+    private int registered;
+
+    @Setup(Level.Iteration)
+    public void setup() throws DataAccessException {
+        userService = new UserService(new MapUserDao(), new MemoryAuthDataAccess());
+        userService.register(USER);
+    }
+
+    @Benchmark
+    public AuthData register() throws DataAccessException {
+        UserData user = new UserData("user" + registered++, USER.password(), USER.email());
+        return userService.register(user);
+    }
+
+    @Benchmark
+    public AuthData login() throws DataAccessException {
+        return userService.login(USER);
+    }
+
+    /**
+     * UserService expects getUser to return null for unknown users, the way the
+     * MySQL DAO does.
+     */
+    private static class MapUserDao implements UserDao {
+        private final Map<String, UserData> users = new HashMap<>();
+
+        @Override
+        public void addUser(UserData user) {
+            users.put(user.username(), user);
+        }
+
+        @Override
+        public UserData getUser(String username) {
+            return users.get(username);
+        }
+
+        @Override
+        public void clear() {
+            users.clear();
+        }
+    }
+}
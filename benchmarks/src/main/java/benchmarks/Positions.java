@@ -0,0 +1,61 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+
+/**
+ * Positions shared by the benchmarks, reached by playing moves from the start
+ * so that they only depend on the public ChessGame API.
+ */
+final class Positions {
+
+    private Positions() {
+    }
+
+    /**
+     * @return an open middlegame with every piece type still on the board
+     */
+    static ChessGame middlegame() {
+        // 1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.d3 Nf6 5.Nc3 d6 6.Bg5 h6
+        return play("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "d2d3", "g8f6",
+                "b1c3", "d7d6", "c1g5", "h7h6");
+    }
+
+    /**
+     * @return black in check with escapes, so a checkmate test has to try moves
+     */
+    static ChessGame checkNotMate() {
+        // 1.e4 f5 2.Qh5+
+        return play("e2e4", "f7f5", "d1h5");
+    }
+
+    /**
+     * @return white checkmated (fool's mate)
+     */
+    static ChessGame checkmate() {
+        // 1.f3 e5 2.g4 Qh4#
+        return play("f2f3", "e7e5", "g2g4", "d8h4");
+    }
+
+    static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        try {
+            for (String move : moves) {
+                game.makeMove(parse(move));
+            }
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException("benchmark line contains an illegal move", e);
+        }
+        return game;
+    }
+
+    private static ChessMove parse(String move) {
+        ChessPosition from = new ChessPosition(move.charAt(1) - '0', move.charAt(0) - 'a' + 1);
+        ChessPosition to = new ChessPosition(move.charAt(3) - '0', move.charAt(2) - 'a' + 1);
+        ChessPiece.PieceType promotion = move.length() > 4 ? ChessPiece.PieceType.QUEEN : null;
+        return new ChessMove(from, to, promotion);
+    }
+}
@@ -0,0 +1,175 @@
+package benchmarks;
+
+import dataaccess.AuthDao;
+import dataaccess.GameDao;
+import dataaccess.MemoryAuthDataAccess;
+import dataaccess.MemoryGameDataAccess;
+import dataaccess.MemoryUserDataAccess;
+import dataaccess.UserDao;
+import model.GameData;
+import server.Server;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the server running its handlers on Jetty's default pool of
+ * platform threads against running them on virtual threads.
+ * <p>
+ * Each client is a virtual thread that lists games over and over; the shared
+ * HTTP client opens a connection for each request in flight. The DAOs are in
+ * memory but sleep before every call to stand in for a database round trip,
+ * which is where real handlers spend their time, so the platform pool runs out
+ * of threads long before it runs out of CPU.
+ * <br/>
+ * <code>
+ * java -cp benchmarks/target/benchmarks.jar benchmarks.ServerLoadTest [clients,...] [db latency ms] [seconds]
+ * </code>
+ * <br/>
+ * The defaults are 100,1000,4000 clients, 5 ms and 10 seconds. Thousands of
+ * clients may need a higher open file limit ({@code ulimit -n}).
+ */
+public class ServerLoadTest {
+
+    private static final int GAMES = 10;
+
+    private record Result(long requests, long errors, long[] latencies, double seconds) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] clientCounts = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{100, 1000, 4000};
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.out.printf("%d ms per DAO call, %d s per run%n", latencyMillis, seconds);
+        System.out.printf("%-9s %8s %12s %9s %9s %8s%n", "mode", "clients", "requests/s", "p50 ms", "p99 ms", "errors");
+        for (int clients : clientCounts) {
+            for (boolean virtualThreads : new boolean[]{false, true}) {
+                Result result = run(virtualThreads, clients, latencyMillis, seconds);
+                long[] latencies = result.latencies();
+                Arrays.sort(latencies);
+                System.out.printf("%-9s %8d %12.0f %9.1f %9.1f %8d%n",
+                        virtualThreads ? "virtual" : "platform", clients,
+                        result.requests() / result.seconds(),
+                        percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                        result.errors());
+            }
+        }
+    }
+
+    private static Result run(boolean virtualThreads, int clients, long latencyMillis, int seconds)
+            throws Exception {
+        UserDao userDao = withLatency(UserDao.class, new MemoryUserDataAccess(), latencyMillis);
+        AuthDao authDao = withLatency(AuthDao.class, new MemoryAuthDataAccess(), latencyMillis);
+        GameDao gameDao = withLatency(GameDao.class, new MemoryGameDataAccess(), latencyMillis);
+        String authToken = authDao.createAuthData("load").authToken();
+        for (int i = 0; i < GAMES; i++) {
+            gameDao.createGame(new GameData(0, null, null, "game " + i, null));
+        }
+
+        // the server logs every websocket event and Javalin logs its startup
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Server server = new Server(userDao, authDao, gameDao, virtualThreads);
+        int port = server.run(0);
+        System.setOut(stdout);
+
+        URI uri = URI.create("http://localhost:" + port + "/game");
+        AtomicLong errors = new AtomicLong();
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+
+        List<Future<List<Long>>> samples = new ArrayList<>();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                samples.add(clientThreads.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(uri).header("authorization", authToken)
+                            .timeout(Duration.ofSeconds(60)).GET().build();
+                    List<Long> latencies = new ArrayList<>();
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= end) {
+                            break;
+                        }
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            if (response.statusCode() != 200 && start >= warmupEnd) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            if (start >= warmupEnd) {
+                                errors.incrementAndGet();
+                            }
+                            continue;
+                        }
+                        if (start >= warmupEnd) {
+                            latencies.add(System.nanoTime() - start);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+        }
+        client.close();
+        server.stop();
+
+        int count = 0;
+        for (Future<List<Long>> sample : samples) {
+            count += sample.get().size();
+        }
+        long[] latencies = new long[count];
+        int i = 0;
+        for (Future<List<Long>> sample : samples) {
+            for (long latency : sample.get()) {
+                latencies[i++] = latency;
+            }
+        }
+        return new Result(count, errors.get(), latencies, seconds);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+
+    /**
+     * Wraps a DAO so every call first sleeps for the given time, then runs on
+     * the DAO one call at a time since the memory DAOs are not thread safe.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T withLatency(Class<T> type, T dao, long latencyMillis) {
+        return (T) Proxy.newProxyInstance(ServerLoadTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(dao, args);
+                    }
+                    Thread.sleep(latencyMillis);
+                    synchronized (dao) {
+                        try {
+                            return method.invoke(dao, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+}
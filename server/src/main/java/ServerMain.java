@@ -8,5 +8,6 @@ public class ServerMain {
 
         Server server = new Server();
         server.run(8081);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * An {@link AuthDao} that keeps recently used tokens in memory in front of
+ * another AuthDao, so validating a token on every request does not cost a
+ * database round trip.
+ * <p>
+ * At most {@code maxSize} tokens are kept, dropping the least recently used
+ * first, and each is looked up again once it is older than the time to live.
+ * Deleting a token or clearing removes it here immediately; the time to live
+ * only bounds how long a token deleted by another server stays usable.
+ * Unknown tokens are not cached.
+ */
+public class CachingAuthDataAccess implements AuthDao {
+
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * @param size      tokens currently cached
+     * @param hits      lookups answered from the cache
+     * @param misses    lookups passed on to the underlying AuthDao
+     * @param evictions tokens dropped to stay within the size bound
+     */
+    public record Stats(int size, long hits, long misses, long evictions) {
+    }
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final AuthDao delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> cache;
+
+    // Bumped by every invalidation, so a lookup that raced with one does not
+    // put the token it read back into the cache.
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingAuthDataAccess(AuthDao delegate) {
+        this(delegate, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    public CachingAuthDataAccess(AuthDao delegate, int maxSize, long ttlMillis) {
+        this(delegate, maxSize, ttlMillis, System::nanoTime);
+    }
+
+    CachingAuthDataAccess(AuthDao delegate, int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("cache size must be at least 1");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        //access order, so the eldest entry is the least recently used
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CachingAuthDataAccess.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public AuthData getAuthData(String authToken) throws DataAccessException {
+        long generation;
+        synchronized (this) {
+            Entry entry = cache.get(authToken);
+            if (entry != null) {
+                if (clock.getAsLong() - entry.expiresAt() < 0) {
+                    hits++;
+                    return entry.auth();
+                }
+                cache.remove(authToken);
+            }
+            misses++;
+            generation = invalidations;
+        }
+
+        //read outside the lock so a slow lookup does not hold up cached ones
+        AuthData auth = delegate.getAuthData(authToken);
+        if (auth != null) {
+            synchronized (this) {
+                if (generation == invalidations) {
+                    put(auth);
+                }
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public AuthData createAuthData(String username) throws DataAccessException {
+        AuthData auth = delegate.createAuthData(username);
+        //the client uses a new token right away, so cache it now
+        synchronized (this) {
+            put(auth);
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuthToken(String authToken) throws DataAccessException {
+        invalidate(authToken);
+        try {
+            delegate.deleteAuthToken(authToken);
+        } finally {
+            invalidate(authToken);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        invalidateAll();
+        try {
+            delegate.clear();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(cache.size(), hits, misses, evictions);
+    }
+
+    private void put(AuthData auth) {
+        cache.put(auth.authToken(), new Entry(auth, clock.getAsLong() + ttlNanos));
+    }
+
+    private synchronized void invalidate(String authToken) {
+        invalidations++;
+        cache.remove(authToken);
+    }
+
+    private synchronized void invalidateAll() {
+        invalidations++;
+        cache.clear();
+    }
+}
@@ -0,0 +1,364 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * {@link #getConnection()} hands out a wrapper whose {@code close()} returns
+ * the connection to the pool instead of closing it, so callers keep using
+ * try-with-resources exactly as they would with a fresh connection. At most
+ * {@code maxSize} connections are open at once; when all are in use a caller
+ * waits up to {@code maxWaitMillis} before getting a {@link SQLTimeoutException}.
+ * Connections left idle longer than {@code idleTimeoutMillis} are closed, and
+ * a connection that has sat idle longer than {@code validateAfterMillis} is
+ * checked with {@link Connection#isValid} before it is handed out again.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A snapshot of the pool's counters.
+     *
+     * @param open      connections currently open, idle or in use
+     * @param idle      connections waiting in the pool
+     * @param inUse     connections currently borrowed
+     * @param borrowed  total successful calls to getConnection
+     * @param created   physical connections opened
+     * @param evicted   idle connections closed for being unused too long
+     * @param invalid   connections discarded because they failed validation
+     *                  or were returned in a bad state
+     * @param timeouts  callers that gave up waiting for a connection
+     * @param waitNanos total time callers spent waiting for a connection
+     */
+    public record Stats(int open, int idle, int inUse, long borrowed, long created, long evicted,
+                        long invalid, long timeouts, long waitNanos) {
+    }
+
+    // Seconds given to Connection.isValid
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private record IdleConnection(Connection connection, long idleSince) {
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final long idleTimeoutNanos;
+    private final long validateAfterNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // most recently returned first, so the least used connections age out at the tail
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private int open;
+    private boolean closed;
+
+    private long borrowed;
+    private long created;
+    private long evicted;
+    private long invalid;
+    private long timeouts;
+    private long waitNanos;
+
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long validateAfterMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("pool size must be at least 1");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+    }
+
+    /**
+     * Borrows a connection, reusing an idle one when possible. Close the
+     * returned connection to give it back.
+     *
+     * @throws SQLTimeoutException if no connection became free within the max wait
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + maxWaitNanos;
+        while (true) {
+            IdleConnection candidate;
+            List<Connection> expired;
+            lock.lock();
+            try {
+                expired = removeExpired(System.nanoTime());
+                while (!closed && idle.isEmpty() && open >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts++;
+                        waitNanos += System.nanoTime() - start;
+                        throw new SQLTimeoutException(String.format(
+                                "timed out after %d ms waiting for one of %d connections",
+                                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), maxSize));
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("interrupted waiting for a connection", e);
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("connection pool is closed");
+                }
+                candidate = idle.pollFirst();
+                if (candidate == null) {
+                    //reserve the slot before opening so the pool never exceeds maxSize
+                    open++;
+                }
+                waitNanos += System.nanoTime() - start;
+            } finally {
+                lock.unlock();
+            }
+            closeAll(expired);
+
+            if (candidate == null) {
+                Connection connection;
+                try {
+                    connection = factory.open();
+                } catch (SQLException | RuntimeException e) {
+                    discarded(null);
+                    throw e;
+                }
+                lock.lock();
+                try {
+                    created++;
+                    borrowed++;
+                } finally {
+                    lock.unlock();
+                }
+                return wrap(connection);
+            }
+
+            if (isUsable(candidate)) {
+                lock.lock();
+                try {
+                    borrowed++;
+                } finally {
+                    lock.unlock();
+                }
+                return wrap(candidate.connection());
+            }
+            closeQuietly(candidate.connection());
+            discarded(() -> invalid++);
+        }
+    }
+
+    /**
+     * Closes idle connections that have passed the idle timeout. This also
+     * happens whenever a connection is borrowed.
+     */
+    public void evictIdle() {
+        List<Connection> expired;
+        lock.lock();
+        try {
+            expired = removeExpired(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+        closeAll(expired);
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(open, idle.size(), open - idle.size(), borrowed, created, evicted,
+                    invalid, timeouts, waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Borrowed
+     * connections are closed as they are returned.
+     */
+    @Override
+    public void close() {
+        List<Connection> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (IdleConnection connection : idle) {
+                toClose.add(connection.connection());
+            }
+            open -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        closeAll(toClose);
+    }
+
+    private boolean isUsable(IdleConnection candidate) {
+        if (System.nanoTime() - candidate.idleSince() < validateAfterNanos) {
+            return true;
+        }
+        try {
+            return candidate.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Must hold the lock; the caller closes the returned connections after releasing it.
+    private List<Connection> removeExpired(long now) {
+        List<Connection> expired = new ArrayList<>();
+        Iterator<IdleConnection> oldest = idle.descendingIterator();
+        while (oldest.hasNext()) {
+            IdleConnection connection = oldest.next();
+            if (now - connection.idleSince() < idleTimeoutNanos) {
+                break;
+            }
+            oldest.remove();
+            expired.add(connection.connection());
+        }
+        open -= expired.size();
+        evicted += expired.size();
+        if (!expired.isEmpty()) {
+            available.signalAll();
+        }
+        return expired;
+    }
+
+    private void release(Connection connection) {
+        boolean reusable;
+        try {
+            //undo anything the borrower left behind
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            connection.clearWarnings();
+            reusable = !connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                idle.addFirst(new IdleConnection(connection, System.nanoTime()));
+                available.signal();
+                return;
+            }
+            open--;
+            if (!closed) {
+                invalid++;
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(connection);
+    }
+
+    // Gives up a reserved slot, optionally updating a counter while locked.
+    private void discarded(Runnable count) {
+        lock.lock();
+        try {
+            open--;
+            if (count != null) {
+                count.run();
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnection(connection));
+    }
+
+    private static void closeAll(List<Connection> connections) {
+        for (Connection connection : connections) {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {}
+    }
+
+    /**
+     * Forwards to the physical connection until closed, at which point the
+     * connection goes back to the pool and this handle stops working.
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection connection;
+        private boolean returned;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(connection);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    if (returned) {
+                        return true;
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + connection;
+                }
+                default -> {
+                }
+            }
+            if (returned) {
+                throw new SQLException("connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -12,6 +12,8 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static boolean binaryGames;
+    private static ConnectionPool pool;
 
     public DatabaseManager() throws DataAccessException {
         configureDatabase();
@@ -38,10 +40,11 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrow a connection to the database from the pool, with the catalog set
+     * based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you
+     * are done with it so it goes back to the pool. The easiest way to do that
+     * is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -52,14 +55,30 @@ public class DatabaseManager {
     static Connection getConnection() throws DataAccessException {
         try {
             //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool.getConnection();
         } catch (SQLException ex) {
             throw new DataAccessException("Error: failed to get connection", ex);
         }
     }
 
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        try {
+            conn.setCatalog(databaseName);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        return conn;
+    }
+
+    /**
+     * @return The connection pool's current size and lifetime counters
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool.stats();
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -81,6 +100,23 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+
+        //"binary" stores new game states with GameCodec instead of as JSON
+        binaryGames = props.getProperty("db.gameFormat", "json").equalsIgnoreCase("binary");
+
+        pool = new ConnectionPool(DatabaseManager::openConnection,
+                Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                Long.parseLong(props.getProperty("db.pool.maxWaitMillis", "5000")),
+                Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                Long.parseLong(props.getProperty("db.pool.validateAfterMillis", "30000")));
+    }
+
+    /**
+     * @return True if games should be written in the compact binary format
+     * rather than as JSON. Both formats are always readable.
+     */
+    static boolean useBinaryGames() {
+        return binaryGames;
     }
 
 
@@ -92,6 +128,16 @@ public class DatabaseManager {
                     preparedStatement.executeUpdate();
                 }
             }
+            for (String statement : migrationStatements) {
+                try (var preparedStatement = conn.prepareStatement(statement)) {
+                    preparedStatement.executeUpdate();
+                } catch (SQLException ex) {
+                    //the column was already added by an earlier run
+                    if (ex.getErrorCode() != DUPLICATE_COLUMN) {
+                        throw ex;
+                    }
+                }
+            }
         } catch (SQLException ex) {
             throw new DataAccessException(500, String.format("Error: Unable to configure database: %s", ex.getMessage()));
         }
@@ -104,6 +150,7 @@ public class DatabaseManager {
                     Object param = params[i];
                     if (param instanceof String p) {ps.setString(i + 1, p);}
                     else if (param instanceof Integer p) {ps.setInt(i + 1, p);}
+                    else if (param instanceof byte[] p) {ps.setBytes(i + 1, p);}
                     else if (param == null) {ps.setNull(i + 1, NULL);}
                 }
                 ps.executeUpdate();
@@ -135,7 +182,18 @@ public class DatabaseManager {
             `whiteUsername` VARCHAR(40),
             `blackUsername` VARCHAR(40),
             `gameName` VARCHAR(100) NOT NULL,
-            `game` JSON
+            `game` JSON,
+            `gameBinary` BLOB,
+            `snapshotPly` INT NOT NULL DEFAULT 0
+            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+            """,
+
+            """
+            CREATE TABLE IF NOT EXISTS game_moves (
+            `gameID` INT NOT NULL,
+            `ply` INT NOT NULL,
+            `move` INT NOT NULL,
+            PRIMARY KEY (`gameID`, `ply`)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
             """,
 
@@ -147,4 +205,14 @@ public class DatabaseManager {
             """
     };
 
+    // MySQL's error code for adding a column that already exists
+    private static final int DUPLICATE_COLUMN = 1060;
+
+    // Changes to tables created by earlier versions; each must fail with
+    // DUPLICATE_COLUMN when it has already been applied.
+    private final String[] migrationStatements = {
+            "ALTER TABLE games ADD COLUMN `gameBinary` BLOB",
+            "ALTER TABLE games ADD COLUMN `snapshotPly` INT NOT NULL DEFAULT 0"
+    };
+
 }
@@ -1,6 +1,7 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
 
 import java.util.List;
@@ -16,6 +17,31 @@ public interface GameDao {
 
     void updateGame(int gameID, ChessGame game) throws DataAccessException;
 
+    /**
+     * Records a move made in a game.
+     *
+     * @param move the move made
+     * @param game the game after the move, which may be stored as a snapshot
+     */
+    void addMove(int gameID, ChessMove move, ChessGame game) throws DataAccessException;
+
+    /**
+     * Records several consecutive moves made in a game.
+     *
+     * @param moves the moves made, in order
+     * @param game  the game after the last move, which may be stored as a snapshot
+     */
+    default void addMoves(int gameID, List<ChessMove> moves, ChessGame game) throws DataAccessException {
+        for (ChessMove move : moves) {
+            addMove(gameID, move, game);
+        }
+    }
+
+    /**
+     * @return every move recorded for a game, in the order they were made
+     */
+    List<ChessMove> getMoves(int gameID) throws DataAccessException;
+
     void updateGameData(GameData gameData) throws DataAccessException;
 
     void clear() throws DataAccessException;
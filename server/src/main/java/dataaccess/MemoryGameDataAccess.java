@@ -1,8 +1,10 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import model.GameData;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +12,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class MemoryGameDataAccess implements GameDao {
     Map<Integer, GameData> gameDataMap = new HashMap<>();
+    Map<Integer, List<ChessMove>> gameMovesMap = new HashMap<>();
     private final AtomicInteger gameIdCounter = new AtomicInteger(1);
 
     @Override
@@ -80,6 +83,25 @@ public class MemoryGameDataAccess implements GameDao {
     public void updateGame(int gameID, ChessGame game) throws DataAccessException {
     }
 
+    @Override
+    public void addMove(int gameID, ChessMove move, ChessGame game) throws DataAccessException {
+        GameData gameData = getGameData(gameID);
+        gameDataMap.put(gameID, new GameData(
+                gameID,
+                gameData.whiteUsername(),
+                gameData.blackUsername(),
+                gameData.gameName(),
+                game
+        ));
+        gameMovesMap.computeIfAbsent(gameID, id -> new ArrayList<>()).add(move);
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        getGameData(gameID);
+        return List.copyOf(gameMovesMap.getOrDefault(gameID, List.of()));
+    }
+
     @Override
     public void updateGameData(GameData gameData) throws DataAccessException {
 
@@ -88,5 +110,6 @@ public class MemoryGameDataAccess implements GameDao {
     @Override
     public void clear() {
         gameDataMap.clear();
+        gameMovesMap.clear();
     }
 }
@@ -1,18 +1,29 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.Move;
 import com.google.gson.Gson;
 import model.GameData;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static dataaccess.DatabaseManager.executeUpdate;
 import static dataaccess.DatabaseManager.getConnection;
 
 public class MySQLGameDataAccess implements GameDao {
 
+    private static final Gson GSON = new Gson();
+    // Moves are appended to game_moves; the full game is only rewritten as a
+    // snapshot every this many plies, and loading replays the moves after it.
+    static final int SNAPSHOT_INTERVAL = 20;
+
     public DatabaseManager dbManager;
 
     public MySQLGameDataAccess() {
@@ -31,7 +42,8 @@ public class MySQLGameDataAccess implements GameDao {
                 ps.setInt(1, gameID);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        return readGame(rs);
+                        GameData game = readGame(rs);
+                        return replayMoves(game, movesAfter(conn, gameID, rs.getInt("snapshotPly")));
                     }
                 }
             }
@@ -43,20 +55,31 @@ public class MySQLGameDataAccess implements GameDao {
 
     @Override
     public int createGame(GameData game) throws DataAccessException {
-        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
-        String gameJson = new Gson().toJson(game.game());
-        return executeUpdate(statement, game.whiteUsername(), game.blackUsername(), game.gameName(), gameJson);
+        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game, gameBinary) VALUES (?, ?, ?, ?, ?)";
+        return executeUpdate(statement, game.whiteUsername(), game.blackUsername(), game.gameName(),
+                gameJson(game.game()), gameBinary(game.game()));
     }
 
     @Override
     public List<GameData> listGames() throws DataAccessException {
         var result = new ArrayList<GameData>();
         try (Connection conn = getConnection()) {
+            //fetch every game's moves since its snapshot in one query rather than one per game
+            Map<Integer, List<Integer>> tails = new HashMap<>();
+            var tailStatement = "SELECT m.gameID, m.move FROM game_moves m JOIN games g ON m.gameID = g.gameID "
+                    + "WHERE m.ply > g.snapshotPly ORDER BY m.gameID, m.ply";
+            try (PreparedStatement ps = conn.prepareStatement(tailStatement);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    tails.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getInt(2));
+                }
+            }
             var statement = "SELECT * FROM games";
             try(PreparedStatement ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        result.add(readGame(rs));
+                        GameData game = readGame(rs);
+                        result.add(replayMoves(game, tails.getOrDefault(game.gameID(), List.of())));
                     }
                 }
             }
@@ -72,14 +95,63 @@ public class MySQLGameDataAccess implements GameDao {
         var whiteUsername = rs.getString("whiteUsername");
         var blackUsername = rs.getString("blackUsername");
         var gameName = rs.getString("gameName");
-        //get json column
-        var gameJson = rs.getString("game");
-        //convert json to java object
-        ChessGame chessGame = new Gson().fromJson(gameJson, ChessGame.class);
+        //prefer the binary column, falling back to json for rows written before it existed
+        ChessGame chessGame;
+        byte[] gameBinary = rs.getBytes("gameBinary");
+        if (gameBinary != null) {
+            chessGame = GameCodec.decode(gameBinary);
+        } else {
+            chessGame = GSON.fromJson(rs.getString("game"), ChessGame.class);
+        }
 
         return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
     }
 
+    private static List<Integer> movesAfter(Connection conn, int gameID, int ply) throws SQLException {
+        var moves = new ArrayList<Integer>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT move FROM game_moves WHERE gameID = ? AND ply > ? ORDER BY ply")) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(rs.getInt(1));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Brings a game read from its snapshot up to date by playing the moves
+     * logged since.
+     */
+    private static GameData replayMoves(GameData gameData, List<Integer> moves) throws DataAccessException {
+        ChessGame game = gameData.game();
+        if (moves.isEmpty() || game == null) {
+            return gameData;
+        }
+        try {
+            for (int move : moves) {
+                game.makeMove(Move.toChessMove(move));
+            }
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException(500, String.format("Error: move log for game %d does not replay: %s",
+                    gameData.gameID(), e.getMessage()));
+        }
+        return gameData;
+    }
+
+    // Each game is stored in exactly one of the two columns, so these return
+    // null for the column that is not in use.
+    private static String gameJson(ChessGame game) {
+        return game == null || DatabaseManager.useBinaryGames() ? null : GSON.toJson(game);
+    }
+
+    private static byte[] gameBinary(ChessGame game) {
+        return game == null || !DatabaseManager.useBinaryGames() ? null : GameCodec.encode(game);
+    }
+
     @Override
     public void joinGame(String playerColor, int gameID, String username) throws DataAccessException {
         //get the game with that gameID
@@ -90,14 +162,21 @@ public class MySQLGameDataAccess implements GameDao {
                     if (!rs.next()) { return; }
 
                     GameData game = readGame(rs);
-                    //find the column being updated
+                    //find the column being updated, reusing this connection rather than
+                    //borrowing a second one from the pool while holding the first
+                    String stmt = null;
                     if (playerColor.equals("BLACK") && game.blackUsername() == null) {
-                        var stmt = "UPDATE games SET blackUsername=? WHERE gameID=?";
-                        executeUpdate(stmt, username, gameID);
+                        stmt = "UPDATE games SET blackUsername=? WHERE gameID=?";
                     }
                     if (playerColor.equals("WHITE") && game.whiteUsername() == null) {
-                        var stmt = "UPDATE games SET whiteUsername=? WHERE gameID=?";
-                        executeUpdate(stmt, username, gameID);
+                        stmt = "UPDATE games SET whiteUsername=? WHERE gameID=?";
+                    }
+                    if (stmt != null) {
+                        try (PreparedStatement update = conn.prepareStatement(stmt)) {
+                            update.setString(1, username);
+                            update.setInt(2, gameID);
+                            update.executeUpdate();
+                        }
                     }
                 }
         } catch (Exception e) {
@@ -106,14 +185,17 @@ public class MySQLGameDataAccess implements GameDao {
     }
 
     public void updateGame(int gameID, ChessGame game) throws DataAccessException {
-        String statement = "UPDATE games SET game = ? WHERE gameID = ?";
+        //the game is a full snapshot, so it already includes every logged move
+        String statement = "UPDATE games SET game = ?, gameBinary = ?, snapshotPly = "
+                + "(SELECT COALESCE(MAX(ply), 0) FROM game_moves WHERE gameID = ?) WHERE gameID = ?";
 
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(statement)) {
 
-            String gameJson = new Gson().toJson(game);
-            ps.setString(1, gameJson);
-            ps.setInt(2, gameID);
+            ps.setString(1, gameJson(game));
+            ps.setBytes(2, gameBinary(game));
+            ps.setInt(3, gameID);
+            ps.setInt(4, gameID);
 
             int rowsAffected = ps.executeUpdate();
 
@@ -127,8 +209,80 @@ public class MySQLGameDataAccess implements GameDao {
         }
     }
 
+    @Override
+    public void addMove(int gameID, ChessMove move, ChessGame game) throws DataAccessException {
+        addMoves(gameID, List.of(move), game);
+    }
+
+    @Override
+    public void addMoves(int gameID, List<ChessMove> moves, ChessGame game) throws DataAccessException {
+        if (moves.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                //lock the game row so concurrent moves get consecutive plies
+                int lastPly;
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT (SELECT COALESCE(MAX(ply), 0) FROM game_moves WHERE gameID = ?) "
+                                + "FROM games WHERE gameID = ? FOR UPDATE")) {
+                    ps.setInt(1, gameID);
+                    ps.setInt(2, gameID);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new DataAccessException(400, "Error: invalid game");
+                        }
+                        lastPly = rs.getInt(1);
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO game_moves (gameID, ply, move) VALUES (?, ?, ?)")) {
+                    for (ChessMove move : moves) {
+                        ps.setInt(1, gameID);
+                        ps.setInt(2, ++lastPly);
+                        ps.setInt(3, Move.encode(move));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                //snapshot if the moves crossed an interval boundary
+                if (lastPly / SNAPSHOT_INTERVAL != (lastPly - moves.size()) / SNAPSHOT_INTERVAL) {
+                    try (PreparedStatement ps = conn.prepareStatement(
+                            "UPDATE games SET game = ?, gameBinary = ?, snapshotPly = ? WHERE gameID = ?")) {
+                        ps.setString(1, gameJson(game));
+                        ps.setBytes(2, gameBinary(game));
+                        ps.setInt(3, lastPly);
+                        ps.setInt(4, gameID);
+                        ps.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(500, String.format("Error: Unable to record move: %s", e.getMessage()));
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        var result = new ArrayList<ChessMove>();
+        try (Connection conn = getConnection()) {
+            for (int move : movesAfter(conn, gameID, 0)) {
+                result.add(Move.toChessMove(move));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(500, String.format("Error: Unable to read data: %s", e.getMessage()));
+        }
+        return result;
+    }
+
     public void updateGameData(GameData gameData) throws DataAccessException {
-        String statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameID = ?";
+        String statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ?, gameBinary = ?, "
+                + "snapshotPly = (SELECT COALESCE(MAX(ply), 0) FROM game_moves WHERE gameID = ?) WHERE gameID = ?";
 
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(statement)) {
@@ -136,8 +290,10 @@ public class MySQLGameDataAccess implements GameDao {
             ps.setString(1, gameData.whiteUsername());
             ps.setString(2, gameData.blackUsername());
             ps.setString(3, gameData.gameName());
-            ps.setString(4, new Gson().toJson(gameData.game()));
-            ps.setInt(5, gameData.gameID());
+            ps.setString(4, gameJson(gameData.game()));
+            ps.setBytes(5, gameBinary(gameData.game()));
+            ps.setInt(6, gameData.gameID());
+            ps.setInt(7, gameData.gameID());
 
             int rows = ps.executeUpdate();
             if (rows == 0) {
@@ -150,6 +306,7 @@ public class MySQLGameDataAccess implements GameDao {
 
     @Override
     public void clear() throws DataAccessException {
+        executeUpdate("TRUNCATE game_moves");
         var statement = "TRUNCATE games";
         executeUpdate(statement);
     }
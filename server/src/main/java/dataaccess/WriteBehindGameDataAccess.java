@@ -0,0 +1,375 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link GameDao} that keeps games being played in memory and records their
+ * moves in the background, so making a move does not wait on the database.
+ * <p>
+ * {@link #getGameData} returns the same {@link GameData} for a game until it
+ * is evicted, and its {@link ChessGame} is the authoritative state. Callers
+ * make a move on a copy of it and report the move with {@link #addMove}, which
+ * puts the new game in place and only queues the write. A single writer thread passes queued moves to the underlying GameDao,
+ * one {@link GameDao#addMoves} call per game for everything queued since its
+ * last pass, and retries failed writes in order. Every other write, and any
+ * read that goes to the underlying GameDao, first waits for queued moves to
+ * be written so the two never disagree.
+ * <p>
+ * {@link #close} writes everything still queued before returning. Games no
+ * one has touched for {@code idleMillis} are dropped from memory once their
+ * moves are written.
+ */
+public class WriteBehindGameDataAccess implements GameDao, AutoCloseable {
+
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    // How long a flush waits for the writer before giving up
+    static final long FLUSH_TIMEOUT_MILLIS = 30_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+    private static final class ActiveGame {
+        GameData gameData;
+        long lastUsed;
+
+        ActiveGame(GameData gameData, long lastUsed) {
+            this.gameData = gameData;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class PendingMoves {
+        final List<ChessMove> moves = new ArrayList<>();
+        // A copy taken after the last move, so writing it never races the next move
+        ChessGame game;
+    }
+
+    private final GameDao delegate;
+    private final long idleNanos;
+    private final Thread writer;
+
+    // Everything below is guarded by this object's monitor
+    private final Map<Integer, ActiveGame> active = new HashMap<>();
+    private Map<Integer, PendingMoves> pending = new LinkedHashMap<>();
+    private boolean writing;
+    private boolean closed;
+    // Bumped by clear(), so moves from before it are never retried after it
+    private long generation;
+
+    public WriteBehindGameDataAccess(GameDao delegate) {
+        this(delegate, DEFAULT_IDLE_MILLIS);
+    }
+
+    public WriteBehindGameDataAccess(GameDao delegate, long idleMillis) {
+        this.delegate = delegate;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.writer = new Thread(this::writeLoop, "game-write-behind");
+        //close() drains the queue; a daemon thread just keeps a missed close from hanging the JVM
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public GameData getGameData(int gameID) throws DataAccessException {
+        synchronized (this) {
+            ActiveGame game = active.get(gameID);
+            if (game != null) {
+                game.lastUsed = System.nanoTime();
+                return game.gameData;
+            }
+        }
+        //moves queued before the game was evicted must reach the database before it is reloaded
+        flush();
+        GameData gameData = delegate.getGameData(gameID);
+        if (gameData == null) {
+            return null;
+        }
+        synchronized (this) {
+            //another thread may have loaded it meanwhile; everyone must share one copy
+            ActiveGame game = active.computeIfAbsent(gameID, id -> new ActiveGame(gameData, 0));
+            game.lastUsed = System.nanoTime();
+            return game.gameData;
+        }
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException {
+        return delegate.createGame(game);
+    }
+
+    @Override
+    public List<GameData> listGames() throws DataAccessException {
+        flush();
+        return delegate.listGames();
+    }
+
+    @Override
+    public void joinGame(String playerColor, int gameID, String username) throws DataAccessException {
+        flush();
+        delegate.joinGame(playerColor, gameID, username);
+        refreshPlayers(gameID);
+    }
+
+    @Override
+    public void updateGame(int gameID, ChessGame game) throws DataAccessException {
+        flush();
+        delegate.updateGame(gameID, game);
+        synchronized (this) {
+            ActiveGame activeGame = active.get(gameID);
+            if (activeGame != null) {
+                GameData gameData = activeGame.gameData;
+                activeGame.gameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(),
+                        gameData.gameName(), game);
+            }
+        }
+    }
+
+    @Override
+    public void addMove(int gameID, ChessMove move, ChessGame game) throws DataAccessException {
+        addMoves(gameID, List.of(move), game);
+    }
+
+    @Override
+    public void addMoves(int gameID, List<ChessMove> moves, ChessGame game) throws DataAccessException {
+        ChessGame snapshot = game.gameCopy();
+        synchronized (this) {
+            if (closed) {
+                throw new DataAccessException(500, "Error: game storage is shut down");
+            }
+            ActiveGame activeGame = active.get(gameID);
+            if (activeGame != null) {
+                activeGame.lastUsed = System.nanoTime();
+                if (activeGame.gameData.game() != game) {
+                    GameData gameData = activeGame.gameData;
+                    activeGame.gameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(),
+                            gameData.gameName(), game);
+                }
+            }
+            PendingMoves queued = pending.computeIfAbsent(gameID, id -> new PendingMoves());
+            queued.moves.addAll(moves);
+            queued.game = snapshot;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        flush();
+        return delegate.getMoves(gameID);
+    }
+
+    @Override
+    public void updateGameData(GameData gameData) throws DataAccessException {
+        flush();
+        delegate.updateGameData(gameData);
+        synchronized (this) {
+            ActiveGame activeGame = active.get(gameData.gameID());
+            if (activeGame != null) {
+                activeGame.gameData = gameData;
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized (this) {
+            pending.clear();
+            active.clear();
+            generation++;
+            //let a write already under way finish so it cannot land after the clear
+            awaitWriter(false);
+        }
+        delegate.clear();
+    }
+
+    /**
+     * Waits until every queued move has been written.
+     *
+     * @throws DataAccessException if they could not be written in time
+     */
+    public void flush() throws DataAccessException {
+        synchronized (this) {
+            if (pending.isEmpty() && !writing) {
+                return;
+            }
+            notifyAll();
+            if (!awaitWriter(true)) {
+                throw new DataAccessException(500, "Error: unable to save game moves");
+            }
+        }
+    }
+
+    /**
+     * @return The number of moves waiting to be written
+     */
+    public synchronized int pendingMoves() {
+        int count = 0;
+        for (PendingMoves queued : pending.values()) {
+            count += queued.moves.size();
+        }
+        return count;
+    }
+
+    /**
+     * Writes every queued move and stops the writer. Moves that still cannot
+     * be written after a while are reported and dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join(FLUSH_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            System.err.println("Unable to save " + pendingMoves() + " game moves before shutting down");
+        }
+    }
+
+    // Must hold the monitor. Returns false if the wait timed out.
+    private boolean awaitWriter(boolean includePending) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MILLIS);
+        boolean interrupted = false;
+        try {
+            while (writing || includePending && !pending.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return true;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void refreshPlayers(int gameID) throws DataAccessException {
+        synchronized (this) {
+            if (!active.containsKey(gameID)) {
+                return;
+            }
+        }
+        GameData stored = delegate.getGameData(gameID);
+        synchronized (this) {
+            ActiveGame activeGame = active.get(gameID);
+            if (activeGame != null && stored != null) {
+                activeGame.gameData = new GameData(gameID, stored.whiteUsername(), stored.blackUsername(),
+                        stored.gameName(), activeGame.gameData.game());
+            }
+        }
+    }
+
+    private void writeLoop() {
+        long retryDelay = 0;
+        while (true) {
+            Map<Integer, PendingMoves> batch;
+            long batchGeneration;
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        wait(TimeUnit.NANOSECONDS.toMillis(idleNanos) / 2 + 1);
+                        evictIdle();
+                    }
+                    if (retryDelay > 0) {
+                        wait(retryDelay);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                batchGeneration = generation;
+                writing = true;
+            }
+
+            Map<Integer, PendingMoves> failed = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<Integer, PendingMoves> entry : batch.entrySet()) {
+                    PendingMoves queued = entry.getValue();
+                    try {
+                        delegate.addMoves(entry.getKey(), queued.moves, queued.game);
+                    } catch (DataAccessException e) {
+                        if (e.getStatusCode() == 500) {
+                            failed.put(entry.getKey(), queued);
+                        } else {
+                            //the game is gone, so retrying cannot help
+                            System.err.println("Dropping moves for game " + entry.getKey() + ": " + e.getMessage());
+                        }
+                    } catch (RuntimeException e) {
+                        //an unexpected error is retried like a database one rather than losing the moves
+                        System.err.println("Error saving moves for game " + entry.getKey() + ": " + e);
+                        failed.put(entry.getKey(), queued);
+                    }
+                }
+            } finally {
+                //even if the writer is dying, never leave writing set for flush to wait on
+                retryDelay = requeue(failed, batchGeneration, retryDelay);
+            }
+        }
+    }
+
+    // Puts failed moves back and wakes anyone waiting on the writer; returns the next retry delay
+    private synchronized long requeue(Map<Integer, PendingMoves> failed, long batchGeneration, long retryDelay) {
+        if (batchGeneration != generation) {
+            failed.clear();
+        }
+        //failed moves go back ahead of any made since, keeping each game's moves in order
+        for (Map.Entry<Integer, PendingMoves> entry : failed.entrySet()) {
+            PendingMoves retry = entry.getValue();
+            PendingMoves newer = pending.remove(entry.getKey());
+            if (newer != null) {
+                retry.moves.addAll(newer.moves);
+                retry.game = newer.game;
+            }
+            pending.put(entry.getKey(), retry);
+        }
+        writing = false;
+        if (!failed.isEmpty()) {
+            retryDelay = Math.min(Math.max(retryDelay * 2, 50), MAX_RETRY_DELAY_MILLIS);
+            System.err.println("Unable to save moves for " + failed.size() + " games, retrying");
+        } else {
+            retryDelay = 0;
+        }
+        evictIdle();
+        notifyAll();
+        return retryDelay;
+    }
+
+    // Must hold the monitor.
+    private void evictIdle() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Integer, ActiveGame>> games = active.entrySet().iterator();
+        while (games.hasNext()) {
+            Map.Entry<Integer, ActiveGame> game = games.next();
+            if (now - game.getValue().lastUsed > idleNanos && !pending.containsKey(game.getKey())) {
+                games.remove();
+            }
+        }
+    }
+}
@@ -7,26 +7,62 @@ import io.javalin.*;
 import model.*;
 import io.javalin.http.Context;
 import service.*;
+import server.websocket.GameMailboxes;
 import server.websocket.WebSocketHandler;
 
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 public class Server {
 
     private final Javalin javalin;
-    private final UserDao userDao = new MySQLUserDataAccess();
-    private final AuthDao authDao = new MySQLAuthDataAccess();
-    private final GameDao gameDao = new MySQLGameDataAccess();
-    private final UserService userService = new UserService(userDao, authDao);
+    private final UserDao userDao;
+    private final AuthDao authDao;
+    private final GameDao gameDao;
+    private final UserService userService;
     private final Gson gson = new Gson();
-    private final ClearService clearService = new ClearService(userDao, authDao, gameDao);
-    private final GameService gameService = new GameService(gameDao, authDao);
-    private final WebSocketHandler wsHandler = new WebSocketHandler(gameDao, authDao);
+    private final ClearService clearService;
+    private final GameService gameService;
+    private final WebSocketHandler wsHandler;
 
+    /**
+     * A server backed by MySQL. Handlers run on virtual threads when the
+     * {@code server.virtualThreads} system property is true.
+     */
     public Server() {
-        javalin = Javalin.create(config -> config.staticFiles.add("web"))
+        this(Boolean.getBoolean("server.virtualThreads"));
+    }
+
+    public Server(boolean virtualThreads) {
+        this(new MySQLUserDataAccess(), new CachingAuthDataAccess(new MySQLAuthDataAccess()),
+                new WriteBehindGameDataAccess(new MySQLGameDataAccess()), virtualThreads);
+    }
+
+    /**
+     * @param virtualThreads whether to run HTTP and websocket handlers, and each
+     *                       game's websocket commands, on virtual threads rather
+     *                       than on fixed size pools of platform threads. Handlers
+     *                       spend most of their time blocked on the database, so
+     *                       this lets many more run at once.
+     */
+    public Server(UserDao userDao, AuthDao authDao, GameDao gameDao, boolean virtualThreads) {
+        this.userDao = userDao;
+        this.authDao = authDao;
+        this.gameDao = gameDao;
+        userService = new UserService(userDao, authDao);
+        clearService = new ClearService(userDao, authDao, gameDao);
+        gameService = new GameService(gameDao, authDao);
+        GameMailboxes mailboxes = virtualThreads
+                ? new GameMailboxes(Executors.newVirtualThreadPerTaskExecutor())
+                : new GameMailboxes();
+        wsHandler = new WebSocketHandler(gameDao, authDao, mailboxes);
+
+        javalin = Javalin.create(config -> {
+                    config.staticFiles.add("web");
+                    config.useVirtualThreads = virtualThreads;
+                })
                 .post("/user", this::handleRegister)
                 .post("/session", this::handleLogin)
                 .delete("/session", this::handleLogout)
@@ -48,6 +84,11 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        wsHandler.close();
+        //write any moves still queued before the server goes away
+        if (gameDao instanceof WriteBehindGameDataAccess writeBehind) {
+            writeBehind.close();
+        }
     }
 
     public void handleRegister(Context ctx) {
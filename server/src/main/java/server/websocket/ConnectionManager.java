@@ -7,53 +7,177 @@ import websocket.messages.ServerMessage;
 import java.io.IOException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ConnectionManager {
 
-    // gameID -> set of sessions
+    // Messages queued for one session before it counts as falling behind
+    public static final int DEFAULT_HIGH_WATER = 32;
+    // Messages queued for one session before it is disconnected at once
+    public static final int DEFAULT_CAPACITY = 256;
+    // How long a session may stay over the high-water mark
+    public static final long DEFAULT_GRACE_MILLIS = 10_000;
+
+    /**
+     * Outbound queue depths across every session, and lifetime counters.
+     *
+     * @param sessions     sessions with an outbound queue
+     * @param queued       messages waiting across all sessions
+     * @param maxDepth     the longest single session queue
+     * @param coalesced    LOAD_GAME messages dropped for a newer one
+     * @param disconnected sessions disconnected for falling behind
+     * @param writeFailures sessions dropped after a write to them failed
+     */
+    public record QueueStats(int sessions, int queued, int maxDepth, long coalesced, long disconnected,
+                             long writeFailures) {
+    }
+
+    // gameID -> set of sessions; a game with no sessions has no entry
     private final ConcurrentHashMap<Integer, Set<Session>> connections = new ConcurrentHashMap<>();
+    // session -> set of gameIDs, the reverse of connections, so a disconnect
+    // only touches the games that session was in
+    private final ConcurrentHashMap<Session, Set<Integer>> sessionGames = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, SessionOutbox> outboxes = new ConcurrentHashMap<>();
     private final Gson gson = new Gson();
+    private final int highWater;
+    private final int capacity;
+    private final long graceNanos;
+    // LOAD_GAME messages coalesced by sessions that have since gone
+    private final LongAdder coalescedByClosed = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    public ConnectionManager() {
+        this(DEFAULT_HIGH_WATER, DEFAULT_CAPACITY, DEFAULT_GRACE_MILLIS);
+    }
+
+    public ConnectionManager(int highWater, int capacity, long graceMillis) {
+        this.highWater = highWater;
+        this.capacity = capacity;
+        this.graceNanos = TimeUnit.MILLISECONDS.toNanos(graceMillis);
+    }
 
     // ADD
     public void add(int gameID, Session session) {
-        connections.computeIfAbsent(gameID, k -> ConcurrentHashMap.newKeySet())
-                .add(session);
+        //both updates run inside compute so they cannot interleave with a removal emptying the entry
+        connections.compute(gameID, (id, sessions) -> addTo(sessions, session));
+        sessionGames.compute(session, (s, games) -> addTo(games, gameID));
+        //a command queued before the socket closed can run after the close was
+        //cleaned up; the session is closed before that cleanup, so undo the add
+        if (!session.isOpen()) {
+            remove(session);
+        }
     }
 
     // REMOVE
     public void remove(int gameID, Session session) {
-        if (connections.containsKey(gameID)) {
-            connections.get(gameID).remove(session);
-        }
+        connections.computeIfPresent(gameID, (id, sessions) -> removeFrom(sessions, session));
+        sessionGames.computeIfPresent(session, (s, games) -> removeFrom(games, gameID));
     }
 
     // REMOVE (on disconnect)
     public void remove(Session session) {
-        for (Set<Session> sessions : connections.values()) {
-            sessions.remove(session);
+        Set<Integer> games = sessionGames.remove(session);
+        if (games != null) {
+            for (int gameID : games) {
+                connections.computeIfPresent(gameID, (id, sessions) -> removeFrom(sessions, session));
+            }
+        }
+        SessionOutbox outbox = outboxes.remove(session);
+        if (outbox != null) {
+            outbox.discard();
+            coalescedByClosed.add(outbox.coalesced());
         }
     }
 
     // SEND (to one client)
     public void send(Session session, ServerMessage message) throws IOException {
         if (session.isOpen()) {
-            System.out.println("connection manager sending to one to client " + gson.toJson(message));
-            session.getRemote().sendString(gson.toJson(message));
+            String msg = gson.toJson(message);
+            enqueue(session, msg, isLoadGame(message));
         }
     }
 
     // BROADCAST
+    /**
+     * Sends a message to every session in a game. The message is serialized
+     * once and the same text queued for each session, and each session's
+     * queue is written separately, so a slow client only delays its own
+     * messages.
+     */
     public void broadcast(int gameID, Session excludeSession, ServerMessage message) throws IOException {
         Set<Session> sessions = connections.get(gameID);
 
         if (sessions == null) { return; }
         String msg = gson.toJson(message);
-        System.out.println("Connection manager broadcasting " + msg);
+        boolean loadGame = isLoadGame(message);
 
         for (Session s : sessions) {
             if (s.isOpen() && (excludeSession == null || !s.equals(excludeSession))) {
-                s.getRemote().sendString(msg);
+                enqueue(s, msg, loadGame);
             }
         }
     }
+
+    /**
+     * @return The number of games with at least one session connected
+     */
+    public int gameCount() {
+        return connections.size();
+    }
+
+    public QueueStats queueStats() {
+        int queued = 0;
+        int maxDepth = 0;
+        long coalesced = coalescedByClosed.sum();
+        for (SessionOutbox outbox : outboxes.values()) {
+            int depth = outbox.depth();
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+            coalesced += outbox.coalesced();
+        }
+        return new QueueStats(outboxes.size(), queued, maxDepth, coalesced, disconnected.sum(),
+                writeFailures.sum());
+    }
+
+    private void enqueue(Session session, String msg, boolean loadGame) {
+        SessionOutbox outbox = outboxes.computeIfAbsent(session,
+                s -> new SessionOutbox(s, highWater, capacity, graceNanos, () -> writeFailed(s)));
+        if (!session.isOpen()) {
+            //closed since the caller checked; don't leave an outbox behind the close cleanup
+            remove(session);
+            return;
+        }
+        if (!outbox.enqueue(msg, loadGame)) {
+            System.out.println("Connection manager disconnected a session that fell behind");
+            disconnected.increment();
+            remove(session);
+        }
+    }
+
+    // A session that cannot be written to is treated as disconnected, so later
+    // messages are not queued for it
+    private void writeFailed(Session session) {
+        writeFailures.increment();
+        remove(session);
+    }
+
+    private static <T> Set<T> addTo(Set<T> set, T item) {
+        if (set == null) {
+            set = ConcurrentHashMap.newKeySet();
+        }
+        set.add(item);
+        return set;
+    }
+
+    // Returning null from a compute function removes the entry
+    private static <T> Set<T> removeFrom(Set<T> set, T item) {
+        set.remove(item);
+        return set.isEmpty() ? null : set;
+    }
+
+    private static boolean isLoadGame(ServerMessage message) {
+        return message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME;
+    }
 }
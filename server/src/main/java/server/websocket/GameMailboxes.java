@@ -0,0 +1,122 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks for each game one at a time, in the order they were
+ * submitted, while tasks for different games run in parallel.
+ * <p>
+ * Each game with work waiting has a mailbox. The first task put in an empty
+ * mailbox schedules it on a shared executor, and it then runs its tasks
+ * until it is empty, so a game's state is only ever touched by one thread
+ * at a time without needing a lock. A busy mailbox gives up its thread
+ * after {@link #TASKS_PER_TURN} tasks so one game cannot starve the others.
+ * Empty mailboxes are discarded.
+ */
+public class GameMailboxes implements AutoCloseable {
+
+    static final int TASKS_PER_TURN = 16;
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Runs mailboxes on a pool of two threads per core. Tasks may block on the
+     * database, so the pool is larger than the core count.
+     */
+    public GameMailboxes() {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, daemonThreads()));
+    }
+
+    public GameMailboxes(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a task to run after every task already submitted for the same game.
+     */
+    public void submit(int gameID, Runnable task) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(gameID, Mailbox::new);
+            synchronized (mailbox) {
+                //lost a race with the mailbox emptying and removing itself
+                if (mailbox.retired) {
+                    continue;
+                }
+                mailbox.tasks.add(task);
+                if (!mailbox.scheduled) {
+                    mailbox.scheduled = true;
+                    executor.execute(mailbox);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of games with tasks queued or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "game-mailbox-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Mailbox implements Runnable {
+        private final int gameID;
+        // Guarded by this mailbox's monitor
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean retired;
+
+        private Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < TASKS_PER_TURN; i++) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        retired = true;
+                        mailboxes.remove(gameID, this);
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("Task for game " + gameID + " failed: " + e);
+                }
+            }
+            //still busy; go to the back of the executor's queue
+            executor.execute(this);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * The messages waiting to go to one websocket session.
+ * <p>
+ * Only one message is written at a time; the next is started when the
+ * previous write completes, so a slow client builds up a queue here instead
+ * of blocking whoever sent to it. A queued LOAD_GAME is dropped when a newer
+ * one arrives, since the client only needs the latest board. A client whose
+ * queue grows past {@code capacity}, or stays above {@code highWater} for
+ * longer than the grace period, is disconnected. A failed write drops the
+ * queue and reports the session as gone through {@code onWriteFailed}.
+ */
+class SessionOutbox {
+
+    private record Outbound(String payload, boolean loadGame) {
+    }
+
+    private final Session session;
+    private final int highWater;
+    private final int capacity;
+    private final long graceNanos;
+    private final Runnable onWriteFailed;
+
+    // Guarded by this outbox's monitor
+    private final Deque<Outbound> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+    // When the queue last went above the high-water mark, or 0 while it is not
+    private long overSince;
+    private long coalesced;
+
+    private final WriteCallback afterWrite = new WriteCallback() {
+        @Override
+        public void writeSuccess() {
+            writeNext();
+        }
+
+        @Override
+        public void writeFailed(Throwable x) {
+            System.out.println("Connection manager failed to send to a session: " + x);
+            discard();
+            onWriteFailed.run();
+        }
+    };
+
+    SessionOutbox(Session session, int highWater, int capacity, long graceNanos, Runnable onWriteFailed) {
+        this.session = session;
+        this.highWater = highWater;
+        this.capacity = capacity;
+        this.graceNanos = graceNanos;
+        this.onWriteFailed = onWriteFailed;
+    }
+
+    /**
+     * Queues a message, starting to write it if nothing else is being written.
+     *
+     * @return False if the session was disconnected for falling too far behind
+     */
+    boolean enqueue(String payload, boolean loadGame) {
+        Outbound first = null;
+        boolean evict = false;
+        synchronized (this) {
+            if (closed) {
+                return true;
+            }
+            if (loadGame) {
+                //only the newest board matters; drop older ones not yet being written
+                Iterator<Outbound> queued = queue.iterator();
+                while (queued.hasNext()) {
+                    if (queued.next().loadGame()) {
+                        queued.remove();
+                        coalesced++;
+                    }
+                }
+            }
+            queue.add(new Outbound(payload, loadGame));
+
+            if (queue.size() > highWater) {
+                long now = System.nanoTime();
+                if (overSince == 0) {
+                    overSince = now;
+                }
+                evict = queue.size() > capacity || now - overSince > graceNanos;
+            }
+            if (evict) {
+                closed = true;
+                queue.clear();
+            } else if (!writing) {
+                writing = true;
+                first = queue.poll();
+            }
+        }
+
+        if (evict) {
+            session.close(StatusCode.POLICY_VIOLATION, "Error: too far behind on messages");
+            return false;
+        }
+        if (first != null) {
+            write(first);
+        }
+        return true;
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    synchronized long coalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Drops everything queued; the session is closing or has closed.
+     */
+    synchronized void discard() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void writeNext() {
+        Outbound next;
+        synchronized (this) {
+            next = closed ? null : queue.poll();
+            if (next == null) {
+                writing = false;
+            }
+            if (queue.size() <= highWater) {
+                overSince = 0;
+            }
+        }
+        if (next != null) {
+            write(next);
+        }
+    }
+
+    private void write(Outbound message) {
+        if (!session.isOpen()) {
+            discard();
+            return;
+        }
+        session.getRemote().sendString(message.payload(), afterWrite);
+    }
+}
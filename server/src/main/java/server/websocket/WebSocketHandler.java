@@ -21,6 +21,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
 
     private final ConnectionManager connections = new ConnectionManager();
+    // every command for a game runs on that game's mailbox, one at a time
+    private final GameMailboxes mailboxes;
     private final Gson gson = new Gson();
     private final GameDao gameDAO;
     private final AuthDao authDao;
@@ -28,8 +30,13 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
 
     public WebSocketHandler(GameDao gameDAO, AuthDao authDao) {
+        this(gameDAO, authDao, new GameMailboxes());
+    }
+
+    public WebSocketHandler(GameDao gameDAO, AuthDao authDao, GameMailboxes mailboxes) {
         this.gameDAO = gameDAO;
         this.authDao = authDao;
+        this.mailboxes = mailboxes;
     }
 
     @Override
@@ -44,19 +51,31 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         try {
             UserGameCommand command =
                     gson.fromJson(ctx.message(), UserGameCommand.class);
+            if (command.getCommandType() == UserGameCommand.CommandType.MAKE_MOVE) {
+                command = gson.fromJson(ctx.message(), MakeMoveCommand.class);
+            }
+            if (command.getGameID() == null) {
+                throw new DataAccessException(400, "Error: invalid game");
+            }
+            //parse here, but touch the game only from its mailbox
+            UserGameCommand parsed = command;
+            Session session = ctx.session;
+            mailboxes.submit(command.getGameID(), () -> handleCommand(parsed, session));
+        } catch (Exception ex) {
+            sendError(ctx.session, ex.getMessage());
+        }
+    }
 
+    private void handleCommand(UserGameCommand command, Session session) {
+        try {
             switch (command.getCommandType()) {
-                case CONNECT -> connect(command, ctx.session);
-                case MAKE_MOVE -> {MakeMoveCommand moveCmd = gson.fromJson(ctx.message(),
-                    MakeMoveCommand.class);
-                    makeMove(moveCmd, ctx.session);
-                }
-                case LEAVE -> leave(command, ctx.session);
-                case RESIGN -> resign(command, ctx.session);
+                case CONNECT -> connect(command, session);
+                case MAKE_MOVE -> makeMove((MakeMoveCommand) command, session);
+                case LEAVE -> leave(command, session);
+                case RESIGN -> resign(command, session);
             }
-
         } catch (Exception ex) {
-            sendError(ctx.session, ex.getMessage());
+            sendError(session, ex.getMessage());
         }
     }
 
@@ -118,8 +137,10 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             throw new DataAccessException(400, "Error: cannot move opponent piece");
         }
 
+        //move on a copy so the stored game is untouched unless the move is recorded
+        game = game.gameCopy();
         game.makeMove(move);
-        gameDAO.updateGame(gameID, game);
+        gameDAO.addMove(gameID, move, game);
 
         var loadMsg = new LoadGameMessage(game);
         connections.broadcast(gameID, null, loadMsg);
@@ -139,6 +160,12 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         } else if (game.isInStalemate(currentTurn)) {
             var stalemateNote = new NotificationMessage("Game ended in stalemate");
             connections.broadcast(gameID, null, stalemateNote);
+        } else if (game.isDrawByRepetition()) {
+            var drawNote = new NotificationMessage("Game drawn by threefold repetition");
+            connections.broadcast(gameID, null, drawNote);
+        } else if (game.isDrawByFiftyMoveRule()) {
+            var drawNote = new NotificationMessage("Game drawn by the fifty-move rule");
+            connections.broadcast(gameID, null, drawNote);
         } else if (game.isInCheck(currentTurn)) {
             var checkNote = new NotificationMessage(currentPlayerUsername + " is in check");
             connections.broadcast(gameID, null, checkNote);
@@ -223,7 +250,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     private void sendError(Session session, String message) {
         try {
             var errorMsg = new ErrorMessage(message);
-            session.getRemote().sendString(gson.toJson(errorMsg));
+            connections.send(session, errorMsg);
         } catch (Exception ignored) {}
     }
 
@@ -246,4 +273,11 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     public void clearState() {
         resignedGames.clear();
     }
+
+    /**
+     * Finishes the commands already received and stops running new ones.
+     */
+    public void close() {
+        mailboxes.close();
+    }
 }
\ No newline at end of file
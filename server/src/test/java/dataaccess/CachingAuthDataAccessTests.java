@@ -0,0 +1,106 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingAuthDataAccessTests {
+    private final AtomicLong now = new AtomicLong();
+    private MemoryAuthDataAccess backing;
+    private CachingAuthDataAccess authDao;
+
+    @BeforeEach
+    void setup() {
+        backing = new MemoryAuthDataAccess();
+        authDao = new CachingAuthDataAccess(backing, 2, 1000, now::get);
+    }
+
+    @Test
+    @DisplayName("cache: repeated lookups are answered without the backing dao")
+    void cachesLookups() throws DataAccessException {
+        AuthData auth = backing.createAuthData("joe");
+
+        assertEquals(auth, authDao.getAuthData(auth.authToken()));
+        backing.authDataMap.clear();
+        assertEquals(auth, authDao.getAuthData(auth.authToken()));
+
+        assertEquals(1, authDao.stats().hits());
+        assertEquals(1, authDao.stats().misses());
+    }
+
+    @Test
+    @DisplayName("cache: unknown tokens are not cached")
+    void missesAreNotCached() throws DataAccessException {
+        assertNull(authDao.getAuthData("nope"));
+        assertNull(authDao.getAuthData("nope"));
+
+        assertEquals(0, authDao.stats().size());
+        assertEquals(2, authDao.stats().misses());
+    }
+
+    @Test
+    @DisplayName("cache: new tokens are cached when created")
+    void createdTokensAreCached() throws DataAccessException {
+        AuthData auth = authDao.createAuthData("joe");
+
+        assertEquals(auth, authDao.getAuthData(auth.authToken()));
+        assertEquals(1, authDao.stats().hits());
+        assertEquals(0, authDao.stats().misses());
+    }
+
+    @Test
+    @DisplayName("cache: deleting a token removes it immediately")
+    void deleteInvalidates() throws DataAccessException {
+        AuthData auth = authDao.createAuthData("joe");
+        authDao.deleteAuthToken(auth.authToken());
+
+        assertNull(authDao.getAuthData(auth.authToken()));
+        assertNull(backing.getAuthData(auth.authToken()));
+    }
+
+    @Test
+    @DisplayName("cache: clear removes every token")
+    void clearInvalidates() throws DataAccessException {
+        AuthData first = authDao.createAuthData("joe");
+        AuthData second = authDao.createAuthData("ann");
+        authDao.clear();
+
+        assertNull(authDao.getAuthData(first.authToken()));
+        assertNull(authDao.getAuthData(second.authToken()));
+        assertEquals(0, authDao.stats().size());
+    }
+
+    @Test
+    @DisplayName("cache: entries older than the time to live are looked up again")
+    void entriesExpire() throws DataAccessException {
+        AuthData auth = authDao.createAuthData("joe");
+        //another server deleted the token
+        backing.deleteAuthToken(auth.authToken());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals(auth, authDao.getAuthData(auth.authToken()));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(authDao.getAuthData(auth.authToken()));
+    }
+
+    @Test
+    @DisplayName("cache: the least recently used token is dropped when full")
+    void boundedSize() throws DataAccessException {
+        AuthData first = authDao.createAuthData("joe");
+        AuthData second = authDao.createAuthData("ann");
+        authDao.getAuthData(first.authToken());
+        AuthData third = authDao.createAuthData("bob");
+
+        assertEquals(2, authDao.stats().size());
+        assertEquals(1, authDao.stats().evictions());
+
+        backing.authDataMap.clear();
+        assertEquals(first, authDao.getAuthData(first.authToken()));
+        assertEquals(third, authDao.getAuthData(third.authToken()));
+        assertNull(authDao.getAuthData(second.authToken()));
+    }
+}
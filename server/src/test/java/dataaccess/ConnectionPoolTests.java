@@ -0,0 +1,171 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTests {
+
+    // Stand-ins for physical connections; they only track whether they are open and valid.
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    private static final class FakeConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+        boolean autoCommit = true;
+        boolean rolledBack;
+        Connection connection;
+    }
+
+    private Connection open() {
+        FakeConnection fake = new FakeConnection();
+        fake.connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        fake.closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> fake.closed.get();
+                    case "isValid" -> fake.valid.get();
+                    case "getAutoCommit" -> fake.autoCommit;
+                    case "setAutoCommit" -> {
+                        fake.autoCommit = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        fake.rolledBack = true;
+                        yield null;
+                    }
+                    default -> null;
+                });
+        opened.add(fake);
+        return fake.connection;
+    }
+
+    @Test
+    @DisplayName("pool: a returned connection is reused instead of reopened")
+    void reusesConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 100, 60_000, 60_000);
+
+        try (Connection conn = pool.getConnection()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection ignored = pool.getConnection()) {
+            assertEquals(1, opened.size());
+        }
+
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(1, stats.created());
+        assertEquals(2, stats.borrowed());
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.inUse());
+        assertFalse(opened.get(0).closed.get());
+    }
+
+    @Test
+    @DisplayName("pool: callers time out once every connection is in use")
+    void boundedWithMaxWait() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 50, 60_000, 60_000);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        assertThrows(SQLTimeoutException.class, pool::getConnection);
+        assertEquals(2, opened.size());
+        assertEquals(1, pool.stats().timeouts());
+
+        second.close();
+        try (Connection third = pool.getConnection()) {
+            assertNotNull(third);
+        }
+        first.close();
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    @DisplayName("pool: a waiting caller gets the next returned connection")
+    void waiterIsHandedReturnedConnection() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::open, 1, 5_000, 60_000, 60_000);
+        Connection held = pool.getConnection();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                held.close();
+            } catch (Exception ignored) {}
+        });
+        releaser.start();
+        try (Connection conn = pool.getConnection()) {
+            assertNotNull(conn);
+        }
+        releaser.join();
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    @DisplayName("pool: idle connections past the timeout are closed")
+    void evictsIdleConnections() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 100, 20, 60_000);
+        pool.getConnection().close();
+
+        Thread.sleep(40);
+        pool.evictIdle();
+
+        assertTrue(opened.get(0).closed.get());
+        assertEquals(1, pool.stats().evicted());
+        assertEquals(0, pool.stats().open());
+    }
+
+    @Test
+    @DisplayName("pool: a connection that fails validation is replaced")
+    void validatesIdleConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 100, 60_000, 0);
+        pool.getConnection().close();
+        opened.get(0).valid.set(false);
+
+        try (Connection ignored = pool.getConnection()) {
+            assertEquals(2, opened.size());
+        }
+        assertTrue(opened.get(0).closed.get());
+        assertEquals(1, pool.stats().invalid());
+        assertEquals(1, pool.stats().open());
+    }
+
+    @Test
+    @DisplayName("pool: an open transaction is rolled back when the connection is returned")
+    void resetsReturnedConnections() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 1, 100, 60_000, 60_000);
+        Connection conn = pool.getConnection();
+        conn.setAutoCommit(false);
+        conn.close();
+
+        assertTrue(opened.get(0).rolledBack);
+        assertTrue(opened.get(0).autoCommit);
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::commit);
+    }
+
+    @Test
+    @DisplayName("pool: closing the pool closes idle connections")
+    void closeClosesIdle() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 2, 100, 60_000, 60_000);
+        Connection borrowed = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.close();
+        assertTrue(opened.get(1).closed.get());
+        assertFalse(opened.get(0).closed.get());
+
+        borrowed.close();
+        assertTrue(opened.get(0).closed.get());
+        assertEquals(0, pool.stats().open());
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+}
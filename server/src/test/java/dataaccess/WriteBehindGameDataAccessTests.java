@@ -0,0 +1,162 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindGameDataAccessTests {
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+    private static final ChessMove NF3 = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+
+    // A memory dao whose move writes can be made to fail, and which records each batch
+    private static class FlakyGameDataAccess extends MemoryGameDataAccess {
+        volatile boolean failing;
+        // writes left that throw an unchecked exception, as a bug or driver error would
+        volatile int crashes;
+        final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public synchronized void addMoves(int gameID, List<ChessMove> moves, ChessGame game)
+                throws DataAccessException {
+            if (failing) {
+                throw new DataAccessException(500, "Error: database unavailable");
+            }
+            if (crashes > 0) {
+                crashes--;
+                throw new IllegalStateException("driver bug");
+            }
+            batchSizes.add(moves.size());
+            super.addMoves(gameID, moves, game);
+        }
+    }
+
+    private FlakyGameDataAccess backing;
+    private WriteBehindGameDataAccess gameDao;
+    private int gameID;
+
+    @BeforeEach
+    void setup() throws DataAccessException {
+        backing = new FlakyGameDataAccess();
+        gameDao = new WriteBehindGameDataAccess(backing);
+        gameID = gameDao.createGame(new GameData(0, "white", "black", "game", new ChessGame()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gameDao.close();
+    }
+
+    private void play(ChessMove move) throws DataAccessException, InvalidMoveException {
+        ChessGame game = gameDao.getGameData(gameID).game().gameCopy();
+        game.makeMove(move);
+        gameDao.addMove(gameID, move, game);
+    }
+
+    @Test
+    @DisplayName("write-behind: games are served from memory and moves reach the dao")
+    void movesAreWritten() throws Exception {
+        GameData first = gameDao.getGameData(gameID);
+        play(E4);
+        play(E5);
+        GameData current = gameDao.getGameData(gameID);
+        assertSame(current, gameDao.getGameData(gameID));
+        assertEquals(ChessGame.TeamColor.WHITE, current.game().getTeamTurn());
+        assertEquals(new ChessGame().getBoard(), first.game().getBoard());
+
+        gameDao.flush();
+        assertEquals(List.of(E4, E5), backing.getMoves(gameID));
+        assertEquals(0, gameDao.pendingMoves());
+    }
+
+    @Test
+    @DisplayName("write-behind: failed writes are retried in order")
+    void failedWritesAreRetried() throws Exception {
+        backing.failing = true;
+        play(E4);
+        play(E5);
+        play(NF3);
+        assertTrue(gameDao.pendingMoves() > 0);
+        assertTrue(backing.batchSizes.isEmpty());
+
+        backing.failing = false;
+        gameDao.flush();
+        assertEquals(List.of(E4, E5, NF3), backing.getMoves(gameID));
+        //the moves queued while the dao was failing were batched, not written one by one
+        assertTrue(backing.batchSizes.size() < 3);
+    }
+
+    @Test
+    @DisplayName("write-behind: an unchecked exception from the dao is retried and does not stop the writer")
+    void uncheckedFailuresAreRetried() throws Exception {
+        backing.crashes = 2;
+        play(E4);
+        play(E5);
+
+        gameDao.flush();
+        assertEquals(List.of(E4, E5), backing.getMoves(gameID));
+
+        play(NF3);
+        gameDao.close();
+        assertEquals(List.of(E4, E5, NF3), backing.getMoves(gameID));
+    }
+
+    @Test
+    @DisplayName("write-behind: closing writes every queued move")
+    void closeWritesQueuedMoves() throws Exception {
+        backing.failing = true;
+        play(E4);
+        backing.failing = false;
+        play(E5);
+
+        gameDao.close();
+        assertEquals(List.of(E4, E5), backing.getMoves(gameID));
+        assertThrows(DataAccessException.class, () -> play(NF3));
+    }
+
+    @Test
+    @DisplayName("write-behind: reads that go to the dao see queued moves")
+    void readsFlushFirst() throws Exception {
+        backing.failing = true;
+        play(E4);
+        backing.failing = false;
+
+        assertEquals(List.of(E4), gameDao.getMoves(gameID));
+        assertEquals(1, gameDao.listGames().size());
+    }
+
+    @Test
+    @DisplayName("write-behind: clear drops queued moves and cached games")
+    void clearDropsEverything() throws Exception {
+        backing.failing = true;
+        play(E4);
+        gameDao.clear();
+        backing.failing = false;
+
+        gameDao.flush();
+        assertEquals(0, gameDao.pendingMoves());
+        assertTrue(gameDao.listGames().isEmpty());
+        assertTrue(backing.batchSizes.isEmpty());
+    }
+
+    @Test
+    @DisplayName("write-behind: player changes are kept alongside the live game")
+    void updateGameDataKeepsGame() throws Exception {
+        play(E4);
+        GameData gameData = gameDao.getGameData(gameID);
+        gameDao.updateGameData(new GameData(gameID, null, "black", "game", gameData.game()));
+
+        GameData updated = gameDao.getGameData(gameID);
+        assertNull(updated.whiteUsername());
+        assertSame(gameData.game(), updated.game());
+        assertEquals(List.of(E4), backing.getMoves(gameID));
+    }
+}
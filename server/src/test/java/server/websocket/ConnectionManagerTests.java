@@ -0,0 +1,287 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+import chess.ChessGame;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionManagerTests {
+    private ConnectionManager connections;
+
+    // A session that records what is sent to it and completes writes only when told to
+    private static class FakeSession {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<WriteCallback> pending = new CopyOnWriteArrayList<>();
+        volatile boolean open = true;
+        volatile boolean closedByServer;
+        final Session session;
+
+        FakeSession() {
+            RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("sendString") && args.length == 2) {
+                            sent.add((String) args[0]);
+                            pending.add((WriteCallback) args[1]);
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getRemote" -> remote;
+                        case "isOpen" -> open;
+                        case "close" -> {
+                            closedByServer = true;
+                            open = false;
+                            yield null;
+                        }
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "toString" -> "FakeSession";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        // Completes the oldest write still in progress
+        void completeWrite() {
+            pending.remove(0).writeSuccess();
+        }
+
+        // Fails the oldest write still in progress
+        void failWrite() {
+            pending.remove(0).writeFailed(new IOException("Broken pipe"));
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        connections = new ConnectionManager();
+    }
+
+    @Test
+    @DisplayName("broadcast: every other open session gets the same serialized text")
+    void broadcastSerializesOnce() throws Exception {
+        FakeSession first = new FakeSession();
+        FakeSession second = new FakeSession();
+        FakeSession excluded = new FakeSession();
+        FakeSession closed = new FakeSession();
+        closed.open = false;
+        for (FakeSession session : List.of(first, second, excluded, closed)) {
+            connections.add(1, session.session);
+        }
+
+        connections.broadcast(1, excluded.session, new NotificationMessage("white moved"));
+
+        assertEquals(1, first.sent.size());
+        assertSame(first.sent.get(0), second.sent.get(0));
+        assertTrue(excluded.sent.isEmpty());
+        assertTrue(closed.sent.isEmpty());
+    }
+
+    @Test
+    @DisplayName("broadcast: a client that never finishes a write does not hold up the others")
+    void broadcastDoesNotWaitForWrites() throws Exception {
+        FakeSession stuck = new FakeSession();
+        FakeSession player = new FakeSession();
+        connections.add(1, stuck.session);
+        connections.add(1, player.session);
+
+        connections.broadcast(1, null, new NotificationMessage("first"));
+        player.completeWrite();
+        connections.broadcast(1, null, new NotificationMessage("second"));
+
+        assertEquals(2, player.sent.size());
+        assertTrue(player.sent.get(1).contains("second"));
+        //the stuck session is still writing its first message; the second waits in its queue
+        assertEquals(1, stuck.sent.size());
+        assertEquals(1, connections.queueStats().queued());
+    }
+
+    @Test
+    @DisplayName("queue: each session writes one message at a time, in order")
+    void writesInOrder() throws Exception {
+        FakeSession session = new FakeSession();
+        connections.add(1, session.session);
+
+        for (int i = 0; i < 3; i++) {
+            connections.broadcast(1, null, new NotificationMessage("note " + i));
+        }
+        assertEquals(1, session.sent.size());
+
+        session.completeWrite();
+        session.completeWrite();
+        assertEquals(3, session.sent.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(session.sent.get(i).contains("note " + i));
+        }
+    }
+
+    @Test
+    @DisplayName("queue: a queued board is replaced by a newer one")
+    void coalescesLoadGame() throws Exception {
+        FakeSession session = new FakeSession();
+        connections.add(1, session.session);
+        ChessGame game = new ChessGame();
+
+        connections.broadcast(1, null, new LoadGameMessage(game));
+        connections.broadcast(1, null, new LoadGameMessage(game));
+        connections.broadcast(1, null, new NotificationMessage("white moved"));
+        connections.broadcast(1, null, new LoadGameMessage(game));
+        assertEquals(2, connections.queueStats().queued());
+        assertEquals(1, connections.queueStats().coalesced());
+
+        session.completeWrite();
+        session.completeWrite();
+        assertEquals(3, session.sent.size());
+        assertTrue(session.sent.get(1).contains("white moved"));
+        assertTrue(session.sent.get(2).contains("LOAD_GAME"));
+    }
+
+    @Test
+    @DisplayName("queue: a session whose queue fills up is disconnected")
+    void disconnectsAtCapacity() throws Exception {
+        connections = new ConnectionManager(2, 4, 60_000);
+        FakeSession slow = new FakeSession();
+        FakeSession player = new FakeSession();
+        connections.add(1, slow.session);
+        connections.add(1, player.session);
+
+        for (int i = 0; i < 6; i++) {
+            connections.broadcast(1, null, new NotificationMessage("note " + i));
+            if (!player.pending.isEmpty()) {
+                player.completeWrite();
+            }
+        }
+
+        assertTrue(slow.closedByServer);
+        assertFalse(player.closedByServer);
+        assertEquals(6, player.sent.size());
+        ConnectionManager.QueueStats stats = connections.queueStats();
+        assertEquals(1, stats.disconnected());
+        assertEquals(1, stats.sessions());
+    }
+
+    @Test
+    @DisplayName("queue: a session that stays over the high-water mark is disconnected")
+    void disconnectsAfterGracePeriod() throws Exception {
+        connections = new ConnectionManager(2, 100, 0);
+        FakeSession slow = new FakeSession();
+        connections.add(1, slow.session);
+
+        //one message being written and three queued, one over the mark
+        for (int i = 0; i < 4; i++) {
+            connections.broadcast(1, null, new NotificationMessage("note " + i));
+        }
+        assertFalse(slow.closedByServer);
+
+        Thread.sleep(1);
+        connections.broadcast(1, null, new NotificationMessage("one too many"));
+        assertTrue(slow.closedByServer);
+    }
+
+    @Test
+    @DisplayName("queue: a session whose write fails is removed and counted")
+    void writeFailureRemovesSession() throws Exception {
+        FakeSession broken = new FakeSession();
+        FakeSession player = new FakeSession();
+        connections.add(1, broken.session);
+        connections.add(1, player.session);
+
+        connections.broadcast(1, null, new NotificationMessage("first"));
+        connections.broadcast(1, null, new NotificationMessage("second"));
+        broken.failWrite();
+        player.completeWrite();
+        connections.broadcast(1, null, new NotificationMessage("third"));
+
+        assertEquals(1, broken.sent.size());
+        assertEquals(2, player.sent.size());
+        ConnectionManager.QueueStats stats = connections.queueStats();
+        assertEquals(1, stats.writeFailures());
+        assertEquals(1, stats.sessions());
+        assertEquals(1, stats.queued());
+    }
+
+    @Test
+    @DisplayName("remove: a disconnect leaves the session in no game and drops empty games")
+    void disconnectRemovesEverywhere() throws Exception {
+        FakeSession leaving = new FakeSession();
+        FakeSession staying = new FakeSession();
+        connections.add(1, leaving.session);
+        connections.add(2, leaving.session);
+        connections.add(2, staying.session);
+        assertEquals(2, connections.gameCount());
+
+        connections.remove(leaving.session);
+        assertEquals(1, connections.gameCount());
+
+        connections.broadcast(2, null, new NotificationMessage("still here"));
+        assertTrue(leaving.sent.isEmpty());
+        assertEquals(1, staying.sent.size());
+    }
+
+    @Test
+    @DisplayName("remove: a connect queued before the socket closed does not bring the session back")
+    void connectAfterClose() throws Exception {
+        GameMailboxes mailboxes = new GameMailboxes(Executors.newSingleThreadExecutor());
+        FakeSession session = new FakeSession();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch connected = new CountDownLatch(1);
+        try {
+            //hold the game's mailbox so the connect waits behind it, as a slow command would
+            mailboxes.submit(1, () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+            });
+            mailboxes.submit(1, () -> {
+                connections.add(1, session.session);
+                try {
+                    connections.send(session.session, new NotificationMessage("welcome"));
+                } catch (Exception ignored) {}
+                connected.countDown();
+            });
+
+            //the socket closes and is cleaned up on the Jetty thread first
+            session.open = false;
+            connections.remove(session.session);
+            release.countDown();
+
+            assertTrue(connected.await(5, TimeUnit.SECONDS));
+            assertEquals(0, connections.gameCount());
+            assertEquals(0, connections.queueStats().sessions());
+        } finally {
+            mailboxes.close();
+        }
+    }
+
+    @Test
+    @DisplayName("remove: leaving one game keeps the session in its others")
+    void leaveOneGame() throws Exception {
+        FakeSession session = new FakeSession();
+        connections.add(1, session.session);
+        connections.add(2, session.session);
+
+        connections.remove(1, session.session);
+        assertEquals(1, connections.gameCount());
+        connections.remove(session.session);
+        assertEquals(0, connections.gameCount());
+
+        //adding again after the entries are gone starts them afresh
+        connections.add(1, session.session);
+        connections.broadcast(1, null, new NotificationMessage("back"));
+        assertEquals(1, session.sent.size());
+    }
+}
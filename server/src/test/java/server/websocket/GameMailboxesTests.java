@@ -0,0 +1,99 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMailboxesTests {
+    private GameMailboxes mailboxes;
+
+    @BeforeEach
+    void setup() {
+        mailboxes = new GameMailboxes(Executors.newFixedThreadPool(4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.close();
+    }
+
+    @Test
+    @DisplayName("mailboxes: tasks for one game run one at a time in order")
+    void serialPerGame() throws InterruptedException {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; i++) {
+            int task = i;
+            mailboxes.submit(1, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                order.add(task);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("mailboxes: a busy game does not hold up another game")
+    void gamesRunInParallel() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+
+        mailboxes.submit(1, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+        });
+        mailboxes.submit(2, otherRan::countDown);
+
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("mailboxes: a failing task does not stop the ones after it")
+    void failuresAreContained() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        mailboxes.submit(1, () -> {
+            throw new IllegalStateException("boom");
+        });
+        mailboxes.submit(1, ran::countDown);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("mailboxes: empty mailboxes are discarded")
+    void emptyMailboxesRemoved() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(10);
+        for (int game = 0; game < 10; game++) {
+            mailboxes.submit(game, done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (mailboxes.activeGames() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, mailboxes.activeGames());
+    }
+}
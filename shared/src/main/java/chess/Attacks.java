@@ -0,0 +1,84 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed move and attack tables, indexed by square (see {@link ChessBoard}
+ * for the square numbering). They are built once when the class loads so that
+ * move generation and attack detection never allocate direction arrays or
+ * redo bounds checks.
+ */
+final class Attacks {
+
+    static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    static final int[][] KING_OFFSETS = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    // Sliding directions: rook rays first, then bishop rays. Queens use all of them.
+    static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
+    static final int FIRST_ORTHOGONAL = 0;
+    static final int FIRST_DIAGONAL = 4;
+    static final int RAY_COUNT = DIRECTIONS.length;
+
+    // bitboards of the squares attacked from each square
+    static final long[] KNIGHT = new long[ChessBoard.SQUARES];
+    static final long[] KING = new long[ChessBoard.SQUARES];
+    // indexed by TeamColor ordinal: the squares a pawn of that team attacks
+    static final long[][] PAWN = new long[2][ChessBoard.SQUARES];
+
+    // the same knight and king targets as square lists, for move generation
+    static final int[][] KNIGHT_TARGETS = new int[ChessBoard.SQUARES][];
+    static final int[][] KING_TARGETS = new int[ChessBoard.SQUARES][];
+    // [square][direction]: the squares along each ray, nearest first
+    static final int[][][] RAYS = new int[ChessBoard.SQUARES][RAY_COUNT][];
+
+    static {
+        for (int square = 0; square < ChessBoard.SQUARES; square++) {
+            KNIGHT_TARGETS[square] = targets(square, KNIGHT_OFFSETS);
+            KING_TARGETS[square] = targets(square, KING_OFFSETS);
+            KNIGHT[square] = mask(KNIGHT_TARGETS[square]);
+            KING[square] = mask(KING_TARGETS[square]);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = mask(targets(square, new int[][]{{1, 1}, {1, -1}}));
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = mask(targets(square, new int[][]{{-1, 1}, {-1, -1}}));
+            for (int ray = 0; ray < RAY_COUNT; ray++) {
+                RAYS[square][ray] = ray(square, DIRECTIONS[ray]);
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    private static int[] targets(int square, int[][] offsets) {
+        int[] found = new int[offsets.length];
+        int count = 0;
+        for (int[] offset : offsets) {
+            int row = square / 8 + offset[0];
+            int col = square % 8 + offset[1];
+            if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                found[count++] = row * 8 + col;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static int[] ray(int square, int[] direction) {
+        int[] found = new int[7];
+        int count = 0;
+        int row = square / 8 + direction[0];
+        int col = square % 8 + direction[1];
+        while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            found[count++] = row * 8 + col;
+            row += direction[0];
+            col += direction[1];
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    private static long mask(int[] squares) {
+        long mask = 0;
+        for (int square : squares) {
+            mask |= 1L << square;
+        }
+        return mask;
+    }
+}
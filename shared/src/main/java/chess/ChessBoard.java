@@ -1,20 +1,48 @@
 package chess;
 
+import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * The board is stored as twelve bitboards, one per team and piece type. Bit
+ * {@code (row - 1) * 8 + (column - 1)} of a bitboard is set when that kind of
+ * piece stands on that square, so square 0 is a1 and square 63 is h8.
+ * <p>
+ * In JSON the board is written as its {@code bitboards}. Boards saved before
+ * the change, as an 8x8 {@code board} array of pieces, are still read.
  */
+@JsonAdapter(ChessBoard.JsonCodec.class)
 public class ChessBoard {
 
-    private ChessPiece[][] board;
+    static final int SQUARES = 64;
+    // the piece code of an empty square; other codes are bitboard indexes
+    static final int EMPTY = -1;
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    static final int PIECE_TYPES = TYPES.length;
+
+    private long[] bitboards;
+
+    // Derived from the bitboards and kept current by putPiece. Not serialized;
+    // a board read back by Gson rebuilds them on first use.
+    private transient boolean derivedValid;
+    private transient int[] kingSquares;
+    private transient long key;
+    // Evaluation totals over every piece on the board
+    private transient int midgame;
+    private transient int endgame;
+    private transient int phase;
 
     public ChessBoard() {
-        board = new ChessPiece[8][8];
+        bitboards = new long[2 * PIECE_TYPES];
     }
 
     /**
@@ -24,7 +52,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        putPiece(squareOf(position), piece);
     }
 
     /**
@@ -35,15 +63,20 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow()-1][position.getColumn()-1];
+        return pieceAt(squareOf(position));
     }
 
 
     public ChessBoard boardCopy() {
         ChessBoard copy = new ChessBoard();
-        copy.board = Arrays.copyOf(board, board.length);
-        for (int i= 0; i < 8; i++) {
-            copy.board[i] = Arrays.copyOf(board[i], board[i].length);
+        copy.bitboards = bitboards.clone();
+        if (derivedValid) {
+            copy.kingSquares = kingSquares.clone();
+            copy.key = key;
+            copy.midgame = midgame;
+            copy.endgame = endgame;
+            copy.phase = phase;
+            copy.derivedValid = true;
         }
         return copy;
     }
@@ -54,30 +87,31 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        board = new ChessPiece[8][8];
+        bitboards = new long[2 * PIECE_TYPES];
+        derivedValid = false;
 
         for (int col = 1; col < 9; col++) {
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
         //Add White Pieces
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
         //Add Black Pieces
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
     }
 
     public boolean isInBounds(ChessPosition checkPos) {
@@ -108,10 +142,264 @@ public class ChessBoard {
         return myPiece.getTeamColor() == checkPiece.getTeamColor();
     }
 
+    // ================= BITBOARD ACCESS =================
+
+    /**
+     * @return the square index (0-63) of an on-board position
+     * @throws IndexOutOfBoundsException if the position is off the board
+     */
+    static int squareOf(ChessPosition position) {
+        int row = position.getRow() - 1;
+        int col = position.getColumn() - 1;
+        if ((row | col) < 0 || row > 7 || col > 7) {
+            throw new IndexOutOfBoundsException("position off the board: " + position);
+        }
+        return row * 8 + col;
+    }
+
+    static ChessPosition positionOf(int square) {
+        return ChessPosition.of(square);
+    }
+
+    /**
+     * @return the piece code of a team and type: the index of its bitboard
+     */
+    static int indexOf(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * PIECE_TYPES + type.ordinal();
+    }
+
+    static ChessPiece pieceOf(int code) {
+        return code == EMPTY ? null : ChessPiece.of(COLORS[code / PIECE_TYPES], TYPES[code % PIECE_TYPES]);
+    }
+
+    /**
+     * @return the piece on a square index, or null if the square is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        return pieceOf(pieceCodeAt(square));
+    }
+
+    /**
+     * @return the code of the piece on a square index, or {@link #EMPTY}
+     */
+    int pieceCodeAt(int square) {
+        long bit = 1L << square;
+        for (int i = 0; i < bitboards.length; i++) {
+            if ((bitboards[i] & bit) != 0) {
+                return i;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Places a piece on a square index, replacing whatever was there
+     *
+     * @param piece the piece to place, or null to empty the square
+     */
+    void putPiece(int square, ChessPiece piece) {
+        setSquare(square, piece == null ? EMPTY : indexOf(piece.getTeamColor(), piece.getPieceType()));
+    }
+
+    /**
+     * Places a piece, by code, on a square index, replacing whatever was there
+     *
+     * @param code the piece code to place, or {@link #EMPTY} to empty the square
+     */
+    void setSquare(int square, int code) {
+        long bit = 1L << square;
+        for (int i = 0; i < bitboards.length; i++) {
+            if ((bitboards[i] & bit) != 0) {
+                bitboards[i] &= ~bit;
+                key ^= Zobrist.PIECE_SQUARE[i][square];
+                midgame -= Evaluation.MIDGAME[i][square];
+                endgame -= Evaluation.ENDGAME[i][square];
+                phase -= Evaluation.PHASE[i];
+            }
+        }
+        if (code != EMPTY) {
+            bitboards[code] |= bit;
+            key ^= Zobrist.PIECE_SQUARE[code][square];
+            midgame += Evaluation.MIDGAME[code][square];
+            endgame += Evaluation.ENDGAME[code][square];
+            phase += Evaluation.PHASE[code];
+        }
+        if (derivedValid) {
+            for (int color = 0; color < 2; color++) {
+                if (kingSquares[color] == square) {
+                    kingSquares[color] = -1;
+                }
+            }
+            if (code != EMPTY && code % PIECE_TYPES == ChessPiece.PieceType.KING.ordinal()) {
+                kingSquares[code / PIECE_TYPES] = square;
+            }
+        }
+    }
+
+    private void ensureDerived() {
+        if (derivedValid) {
+            return;
+        }
+        kingSquares = new int[2];
+        for (ChessGame.TeamColor color : COLORS) {
+            long kings = bitboards[indexOf(color, ChessPiece.PieceType.KING)];
+            kingSquares[color.ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+        }
+        key = 0;
+        midgame = 0;
+        endgame = 0;
+        phase = 0;
+        for (int i = 0; i < bitboards.length; i++) {
+            for (long pieces = bitboards[i]; pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                key ^= Zobrist.PIECE_SQUARE[i][square];
+                midgame += Evaluation.MIDGAME[i][square];
+                endgame += Evaluation.ENDGAME[i][square];
+                phase += Evaluation.PHASE[i];
+            }
+        }
+        derivedValid = true;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, maintained
+     * incrementally as pieces are added and removed
+     */
+    long zobristKey() {
+        ensureDerived();
+        return key;
+    }
+
+    /**
+     * @return the material and piece-square score of this board, tapered
+     * between middlegame and endgame, in centipawns with white positive;
+     * maintained incrementally as pieces are added and removed
+     */
+    int evaluate() {
+        ensureDerived();
+        return Evaluation.taper(midgame, endgame, phase);
+    }
+
+    /**
+     * @return the square index of the team's king, or -1 if it has none
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        ensureDerived();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Determines whether any piece of the given team attacks a square. Rather
+     * than generating the attacker's moves, this probes outward from the square:
+     * knight, king and pawn attackers are found with precomputed masks, and
+     * sliders by walking each ray to its first blocker.
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor by) {
+        int base = by.ordinal() * PIECE_TYPES;
+        ChessGame.TeamColor defender = by == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+
+        if ((Attacks.KNIGHT[square] & bitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (Attacks.KING[square] & bitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0
+                || (Attacks.PAWN[defender.ordinal()][square] & bitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = bitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long straight = bitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        long diagonal = bitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        long occupied = occupancy();
+        return rayHits(square, Attacks.FIRST_ORTHOGONAL, Attacks.FIRST_DIAGONAL, straight, occupied)
+                || rayHits(square, Attacks.FIRST_DIAGONAL, Attacks.RAY_COUNT, diagonal, occupied);
+    }
+
+    private static boolean rayHits(int square, int firstRay, int endRay, long attackers, long occupied) {
+        if (attackers == 0) {
+            return false;
+        }
+        int[][] rays = Attacks.RAYS[square];
+        for (int ray = firstRay; ray < endRay; ray++) {
+            for (int target : rays[ray]) {
+                long bit = 1L << target;
+                if ((occupied & bit) != 0) {
+                    if ((attackers & bit) != 0) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the piece on one square to another in place, promoting it if asked.
+     * No legality checks are made.
+     *
+     * @return the code of the piece that was captured on the target square, or
+     * {@link #EMPTY}
+     */
+    int movePiece(int from, int to, ChessPiece.PieceType promotion) {
+        int moved = pieceCodeAt(from);
+        int captured = pieceCodeAt(to);
+        setSquare(from, EMPTY);
+        setSquare(to, promotion == null ? moved : moved - moved % PIECE_TYPES + promotion.ordinal());
+        return captured;
+    }
+
+    /**
+     * Reverses {@link #movePiece}, restoring the moved piece (un-promoted) and
+     * whatever it captured.
+     */
+    void unmovePiece(int from, int to, int moved, int captured) {
+        setSquare(to, captured);
+        setSquare(from, moved);
+    }
+
+    /**
+     * @return the team of the piece on a square index, or null if it is empty
+     */
+    ChessGame.TeamColor colorAt(int square) {
+        long bit = 1L << square;
+        if ((occupancy(ChessGame.TeamColor.WHITE) & bit) != 0) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        return (occupancy(ChessGame.TeamColor.BLACK) & bit) != 0 ? ChessGame.TeamColor.BLACK : null;
+    }
+
+    /**
+     * @return bitboard of every piece of the given team and type
+     */
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards[indexOf(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square occupied by the given team
+     */
+    long occupancy(ChessGame.TeamColor color) {
+        int base = color.ordinal() * PIECE_TYPES;
+        long occupied = 0;
+        for (int i = base; i < base + PIECE_TYPES; i++) {
+            occupied |= bitboards[i];
+        }
+        return occupied;
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    long occupancy() {
+        long occupied = 0;
+        for (long bitboard : bitboards) {
+            occupied |= bitboard;
+        }
+        return occupied;
+    }
+
     @Override
     public String toString() {
         return "ChessBoard{" +
-                "board=" + Arrays.toString(board) +
+                "bitboards=" + Arrays.toString(bitboards) +
                 '}';
     }
 
@@ -121,11 +409,51 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        return Arrays.equals(bitboards, that.bitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Long.hashCode(zobristKey());
+    }
+
+    /**
+     * Writes the bitboards, and reads either the bitboards or the older
+     * {@code board} array indexed [row - 1][column - 1].
+     */
+    static class JsonCodec implements JsonSerializer<ChessBoard>, JsonDeserializer<ChessBoard> {
+
+        @Override
+        public JsonElement serialize(ChessBoard board, Type type, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+            json.add("bitboards", context.serialize(board.bitboards));
+            return json;
+        }
+
+        @Override
+        public ChessBoard deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            JsonObject object = json.getAsJsonObject();
+            ChessBoard board = new ChessBoard();
+            if (object.has("bitboards")) {
+                long[] bitboards = context.deserialize(object.get("bitboards"), long[].class);
+                if (bitboards.length != board.bitboards.length) {
+                    throw new JsonParseException("Expected " + board.bitboards.length + " bitboards");
+                }
+                board.bitboards = bitboards;
+            } else if (object.has("board")) {
+                JsonArray rows = object.getAsJsonArray("board");
+                for (int row = 0; row < rows.size() && row < 8; row++) {
+                    JsonArray columns = rows.get(row).getAsJsonArray();
+                    for (int col = 0; col < columns.size() && col < 8; col++) {
+                        ChessPiece piece = context.deserialize(columns.get(col), ChessPiece.class);
+                        if (piece != null) {
+                            board.putPiece(row * 8 + col, ChessPiece.of(piece.getTeamColor(), piece.getPieceType()));
+                        }
+                    }
+                }
+            }
+            return board;
+        }
     }
 }
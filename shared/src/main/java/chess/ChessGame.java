@@ -1,8 +1,19 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -11,13 +22,73 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.JsonCodec.class)
 public class ChessGame {
+    // castling rights bits
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = 15;
+    static final int NO_SQUARE = -1;
+
+    // Check, checkmate and stalemate results for positions already seen, shared
+    // by every game. Entries are keyed by getPositionKey, so they describe the
+    // side to move. The data word holds the STATUS_ flags and the bitmap word
+    // the squares of the pieces that have a legal move.
+    private static final PositionTable STATUS_CACHE = new PositionTable(1 << 15);
+    private static final long STATUS_IN_CHECK = 1L << PositionTable.DEPTH_BITS;
+    private static final long STATUS_NO_MOVES = STATUS_IN_CHECK << 1;
+
+    private static final int WHITE_KING_HOME = 4;
+    private static final int BLACK_KING_HOME = 60;
+    // rights kept after any move from or to each square
+    private static final int[] CASTLING_MASK = new int[ChessBoard.SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[WHITE_KING_HOME] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[WHITE_KING_HOME - 4] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[WHITE_KING_HOME + 3] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[BLACK_KING_HOME] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[BLACK_KING_HOME - 4] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[BLACK_KING_HOME + 3] &= ~BLACK_KINGSIDE;
+    }
+
     private TeamColor turn;
     private ChessBoard board;
+    private int castlingRights;
+    // square a pawn may capture en passant onto this turn, or NO_SQUARE
+    private int enPassantSquare;
+    // plies since the last capture or pawn move, for the fifty-move rule
+    private int halfmoveClock;
+    // starts at 1 and goes up after each black move, as in FEN
+    private int fullmoveNumber;
+    // position keys before each move made, for detecting repetitions; the
+    // array has spare capacity, so JSON gets only getHistoryKeys()
+    private transient long[] history;
+    private transient int historySize;
+
     public ChessGame() {
         this.turn = TeamColor.WHITE;
         this.board = new ChessBoard();
         board.resetBoard();
+        this.castlingRights = ALL_CASTLING;
+        this.enPassantSquare = NO_SQUARE;
+        this.fullmoveNumber = 1;
+        this.history = new long[16];
+    }
+
+    /**
+     * A game on the given board with no castling rights or history, for
+     * callers that set the rest of the state themselves. The history array is
+     * allocated on the first move.
+     */
+    ChessGame(ChessBoard board) {
+        this.turn = TeamColor.WHITE;
+        this.board = board;
+        this.enPassantSquare = NO_SQUARE;
+        this.fullmoveNumber = 1;
     }
 
     /**
@@ -52,30 +123,19 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPos) {
-        ChessPiece piece = board.getPiece(startPos);
-        if (piece == null) {
+        int from = ChessBoard.squareOf(startPos);
+        TeamColor color = board.colorAt(from);
+        if (color == null) {
             return null;
         }
-        Collection<ChessMove> moves = piece.pieceMoves(board, startPos);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-        //iterate through possible moves from start pos
-        for (ChessMove move : moves) {
-            // make a copy of the board
-            ChessBoard boardCopy = board.boardCopy();
-            //make move in the copy
-            boardCopy.addPiece(move.getStartPosition(), null);
-            boardCopy.addPiece(move.getEndPosition(), piece);
-
-            ChessBoard originalBoard = this.board;
-            this.board = boardCopy;
-
-            //check if copy not inCheck
-            if (!isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
-            }
-            this.board = originalBoard;
+        //a cached status can tell us the piece has no moves without generating any
+        long[] status = new long[2];
+        if (color == turn && STATUS_CACHE.probe(getPositionKey(), status) && (status[1] & 1L << from) == 0) {
+            return new ArrayList<>();
         }
-        return validMoves;
+        MoveList moves = new MoveList(MoveGenerator.PIECE_MOVES_CAPACITY);
+        pieceMoves(from, moves);
+        return moves.toChessMoves();
     }
 
     /**
@@ -86,8 +146,6 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPosition startPos = move.getStartPosition();
-        ChessPosition endPos = move.getEndPosition();
-        ChessPiece.PieceType promotionP = move.getPromotionPiece();
         ChessPiece piece = board.getPiece(startPos);
 
         if (piece == null) {
@@ -96,53 +154,246 @@ public class ChessGame {
         if (piece.getTeamColor() != turn) {
             throw new InvalidMoveException("It is not your turn to move.");
         }
-        Collection<ChessMove> validMoves = validMoves(startPos);
+        if (!board.isInBounds(move.getEndPosition())) {
+            throw new InvalidMoveException("Invalid move.");
+        }
+        int packed = Move.encode(move);
+        MoveList validMoves = new MoveList(MoveGenerator.PIECE_MOVES_CAPACITY);
+        pieceMoves(Move.from(packed), validMoves);
         //check if move is invalid
-        if (!validMoves.contains(move)) {
+        if (!validMoves.contains(packed)) {
             throw new InvalidMoveException("Invalid move.");
         }
-        //check if promotion move and do move
-        if (promotionP != null) {
-            board.addPiece(endPos, new ChessPiece(getTeamTurn(), promotionP));
-        } else {
-            board.addPiece(endPos, piece);
+        //do move (including any promotion) and change turn
+        doMoveUnchecked(packed);
+        //nothing before a capture or pawn move can be repeated again
+        if (halfmoveClock == 0) {
+            historySize = 0;
         }
-        board.addPiece(startPos, null);
-        //change turn
-        if (turn == TeamColor.BLACK) {
-            turn = TeamColor.WHITE;
-        } else {
-            turn = TeamColor.BLACK;
+    }
+
+    /**
+     * Adds the legal moves of the piece on a square to a list.
+     */
+    void pieceMoves(int from, MoveList moves) {
+        int start = moves.size();
+        int code = board.pieceCodeAt(from);
+        ChessPiece piece = ChessBoard.pieceOf(code);
+        TeamColor color = piece.getTeamColor();
+        ChessPiece.generatorFor(piece.getPieceType()).generate(board, from, color, moves);
+        if (code == ChessBoard.indexOf(color, ChessPiece.PieceType.KING)) {
+            castlingMoves(color, moves);
+        } else if (code == ChessBoard.indexOf(color, ChessPiece.PieceType.PAWN) && color == turn
+                && enPassantSquare != NO_SQUARE
+                && (Attacks.PAWN[color.ordinal()][from] & 1L << enPassantSquare) != 0) {
+            moves.add(Move.encode(from, enPassantSquare));
         }
+        removeIllegal(moves, start, color);
     }
 
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                ChessPosition kingPos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(kingPos);
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return kingPos;
-                }
+    /**
+     * Replaces the contents of a list with every legal move for the side to move,
+     * leaving the game as it was. Together with {@link #doMove} and {@link #undoMove} this is the
+     * allocation-free interface that search code walks the game tree with.
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        for (long own = board.occupancy(turn); own != 0; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            ChessPiece.generatorFor(ChessBoard.pieceOf(board.pieceCodeAt(from)).getPieceType())
+                    .generate(board, from, turn, moves);
+        }
+        castlingMoves(turn, moves);
+        if (enPassantSquare != NO_SQUARE) {
+            //the squares a pawn would attack from the en passant square are the
+            //squares our pawns can capture onto it from
+            long capturers = Attacks.PAWN[opponent(turn).ordinal()][enPassantSquare]
+                    & board.pieces(turn, ChessPiece.PieceType.PAWN);
+            for (; capturers != 0; capturers &= capturers - 1) {
+                moves.add(Move.encode(Long.numberOfTrailingZeros(capturers), enPassantSquare));
             }
         }
-        throw new IllegalStateException("king not found for team: " + teamColor);
+        removeIllegal(moves, 0, turn);
     }
 
-    private List<ChessPosition> getEnemyPieces(TeamColor teamColor) {
-        List<ChessPosition> enemyPositions = new ArrayList<>();
+    /**
+     * Adds the castling moves open to a team. The king may not castle out of or
+     * through check; castling into check is left to {@link #removeIllegal}.
+     */
+    private void castlingMoves(TeamColor color, MoveList moves) {
+        int home = color == TeamColor.WHITE ? WHITE_KING_HOME : BLACK_KING_HOME;
+        int kingside = color == TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = color == TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0
+                || board.pieceCodeAt(home) != ChessBoard.indexOf(color, ChessPiece.PieceType.KING)) {
+            return;
+        }
+        TeamColor enemy = opponent(color);
+        if (board.isAttacked(home, enemy)) {
+            return;
+        }
+        int rook = ChessBoard.indexOf(color, ChessPiece.PieceType.ROOK);
+        long occupied = board.occupancy();
+        if ((castlingRights & kingside) != 0 && board.pieceCodeAt(home + 3) == rook
+                && (occupied & 3L << home + 1) == 0 && !board.isAttacked(home + 1, enemy)) {
+            moves.add(Move.encode(home, home + 2));
+        }
+        if ((castlingRights & queenside) != 0 && board.pieceCodeAt(home - 4) == rook
+                && (occupied & 7L << home - 3) == 0 && !board.isAttacked(home - 1, enemy)) {
+            moves.add(Move.encode(home, home - 2));
+        }
+    }
 
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
-                if (piece == null || piece.getTeamColor() == teamColor) {
-                    continue; // skip empty squares and friendly pieces
-                }
-                enemyPositions.add(pos);
+    /**
+     * Filters a list in place from index {@code start} on, keeping only the moves
+     * that do not leave the mover's own king in check. Each move is tried on the
+     * board and taken back again.
+     */
+    private void removeIllegal(MoveList moves, int start, TeamColor mover) {
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = doMoveUnchecked(move);
+            boolean legal = !isInCheck(mover);
+            undoMoveUnchecked(move, undo);
+            if (legal) {
+                moves.set(kept++, move);
             }
         }
-        return enemyPositions;
+        moves.truncate(kept);
+    }
+
+    // Undo records are packed into a long so that making a move allocates
+    // nothing: bits 0-3 hold the moved piece code, bits 4-7 the captured piece
+    // code plus one (0 for no capture), bits 8-11 the castling rights, bits
+    // 12-18 the en passant square plus one and bits 19-34 the halfmove clock.
+    private static final int UNDO_CAPTURED_SHIFT = 4;
+    private static final int UNDO_CASTLING_SHIFT = 8;
+    private static final int UNDO_EN_PASSANT_SHIFT = 12;
+    private static final int UNDO_CLOCK_SHIFT = 19;
+    private static final int UNDO_PIECE_MASK = 0xF;
+    private static final int UNDO_SQUARE_MASK = 0x7F;
+    private static final int UNDO_CLOCK_MASK = 0xFFFF;
+
+    /**
+     * Plays a packed move on this game's board in place and passes the turn.
+     * The move should come from {@link #legalMoves}: only that it moves one of
+     * the side to move's pieces, and does not capture another, is checked, so
+     * the board stays consistent but the game may not follow the rules.
+     *
+     * @return the packed undo record needed to take the move back
+     * @throws IllegalArgumentException if the move does not start on a piece of
+     *                                  the side to move or lands on one
+     */
+    public long doMove(int move) {
+        int moved = board.pieceCodeAt(Move.from(move));
+        if (moved == ChessBoard.EMPTY || moved / ChessBoard.PIECE_TYPES != turn.ordinal()
+                || board.colorAt(Move.to(move)) == turn) {
+            throw new IllegalArgumentException("Not a move for " + turn + ": " + Move.toChessMove(move));
+        }
+        return doMoveUnchecked(move);
+    }
+
+    /**
+     * Takes back a move made by {@link #doMove}, given the undo record it
+     * returned. Moves must be taken back in the reverse order they were made.
+     *
+     * @throws IllegalArgumentException if the move was not made by the side
+     *                                  that moved last, or no move was made
+     */
+    public void undoMove(int move, long undo) {
+        TeamColor mover = opponent(turn);
+        if (historySize == 0 || (undo & UNDO_PIECE_MASK) / ChessBoard.PIECE_TYPES != mover.ordinal()
+                || board.colorAt(Move.to(move)) != mover) {
+            throw new IllegalArgumentException("Not the last move made: " + Move.toChessMove(move));
+        }
+        undoMoveUnchecked(move, undo);
+    }
+
+    /**
+     * {@link #doMove} without the checks, for moves this package generated.
+     * Legality filtering also tries moves for the side not to move; the turn
+     * is passed all the same and given back by {@link #undoMoveUnchecked}.
+     * Castling is recognised by the king moving two files and en passant by a
+     * pawn moving onto the en passant square, so neither needs a flag in the
+     * move.
+     */
+    long doMoveUnchecked(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moved = board.pieceCodeAt(from);
+        long undo = moved | (long) castlingRights << UNDO_CASTLING_SHIFT
+                | (long) (enPassantSquare + 1) << UNDO_EN_PASSANT_SHIFT
+                | (long) Math.min(halfmoveClock, UNDO_CLOCK_MASK) << UNDO_CLOCK_SHIFT;
+        pushHistory(getPositionKey());
+
+        int captured = board.movePiece(from, to, Move.promotion(move));
+        boolean pawn = moved % ChessBoard.PIECE_TYPES == ChessPiece.PieceType.PAWN.ordinal();
+        if (pawn && to == enPassantSquare) {
+            board.setSquare(turn == TeamColor.WHITE ? to - 8 : to + 8, ChessBoard.EMPTY);
+        } else if (moved % ChessBoard.PIECE_TYPES == ChessPiece.PieceType.KING.ordinal()
+                && Math.abs(to - from) == 2) {
+            //castling also moves the rook to the square the king crossed
+            int rookFrom = to > from ? from + 3 : from - 4;
+            board.movePiece(rookFrom, (from + to) / 2, null);
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        halfmoveClock = pawn || captured != ChessBoard.EMPTY ? 0 : halfmoveClock + 1;
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        enPassantSquare = NO_SQUARE;
+        if (pawn && Math.abs(to - from) == 16) {
+            int skipped = (from + to) / 2;
+            //only record the square when an enemy pawn can actually take on it
+            if ((Attacks.PAWN[turn.ordinal()][skipped] & board.pieces(opponent(turn), ChessPiece.PieceType.PAWN)) != 0) {
+                enPassantSquare = skipped;
+            }
+        }
+        turn = opponent(turn);
+        return undo | (long) (captured + 1) << UNDO_CAPTURED_SHIFT;
+    }
+
+    /**
+     * {@link #undoMove} without the checks.
+     */
+    void undoMoveUnchecked(int move, long undo) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moved = (int) (undo & UNDO_PIECE_MASK);
+        int captured = (int) (undo >>> UNDO_CAPTURED_SHIFT & UNDO_PIECE_MASK) - 1;
+        turn = opponent(turn);
+        castlingRights = (int) (undo >>> UNDO_CASTLING_SHIFT & UNDO_PIECE_MASK);
+        enPassantSquare = (int) (undo >>> UNDO_EN_PASSANT_SHIFT & UNDO_SQUARE_MASK) - 1;
+        halfmoveClock = (int) (undo >>> UNDO_CLOCK_SHIFT & UNDO_CLOCK_MASK);
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        historySize--;
+
+        board.unmovePiece(from, to, moved, captured);
+        int type = moved % ChessBoard.PIECE_TYPES;
+        if (type == ChessPiece.PieceType.PAWN.ordinal() && to == enPassantSquare) {
+            board.setSquare(turn == TeamColor.WHITE ? to - 8 : to + 8,
+                    ChessBoard.indexOf(opponent(turn), ChessPiece.PieceType.PAWN));
+        } else if (type == ChessPiece.PieceType.KING.ordinal() && Math.abs(to - from) == 2) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            board.movePiece((from + to) / 2, rookFrom, null);
+        }
+    }
+
+    private void pushHistory(long key) {
+        if (history == null) {
+            history = new long[16];
+        } else if (historySize == history.length) {
+            history = Arrays.copyOf(history, historySize * 2);
+        }
+        history[historySize++] = key;
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -153,19 +404,12 @@ public class ChessGame {
      */
     public boolean isInCheck(TeamColor teamColor) {
         //locate the king for the given team
-        ChessPosition kingPos = findKing(teamColor);
-
-        //look at every opposing piece
-        for (ChessPosition enemyPos : getEnemyPieces(teamColor)) {
-            ChessPiece enemy = board.getPiece(enemyPos);
-            //could this piece move to the kings square
-            for (ChessMove move : enemy.pieceMoves(board, enemyPos)) {
-                if (move.getEndPosition().equals(kingPos)) {
-                    return true;
-                }
-            }
+        int kingSquare = board.kingSquare(teamColor);
+        if (kingSquare < 0) {
+            throw new IllegalStateException("king not found for team: " + teamColor);
         }
-        return false;
+        //look outward from the king for any opposing piece that reaches it
+        return board.isAttacked(kingSquare, opponent(teamColor));
     }
 
     /**
@@ -175,6 +419,9 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
+        if (teamColor == turn) {
+            return (status() & (STATUS_IN_CHECK | STATUS_NO_MOVES)) == (STATUS_IN_CHECK | STATUS_NO_MOVES);
+        }
         if (!isInCheck(teamColor)) {
             return false;
         }
@@ -189,24 +436,262 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
+        if (teamColor == turn) {
+            return (status() & (STATUS_IN_CHECK | STATUS_NO_MOVES)) == STATUS_NO_MOVES;
+        }
         if (isInCheck(teamColor)) {
             return false;
         }
         return checkMoves(teamColor);
     }
 
+    /**
+     * Gets the status flags of the current position for the side to move,
+     * from the shared cache when this position has been seen before.
+     */
+    private long status() {
+        long key = getPositionKey();
+        long[] entry = new long[2];
+        if (STATUS_CACHE.probe(key, entry)) {
+            return entry[0];
+        }
+        MoveList moves = new MoveList();
+        legalMoves(moves);
+        long movable = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            movable |= 1L << Move.from(moves.get(i));
+        }
+        long status = (isInCheck(turn) ? STATUS_IN_CHECK : 0) | (moves.isEmpty() ? STATUS_NO_MOVES : 0);
+        STATUS_CACHE.store(key, status, movable);
+        return status;
+    }
+
     private boolean checkMoves(TeamColor teamColor) {
-        for(int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(pos);
+        MoveList moves = new MoveList(MoveGenerator.PIECE_MOVES_CAPACITY);
+        for (long friendly = board.occupancy(teamColor); friendly != 0; friendly &= friendly - 1) {
+            moves.clear();
+            pieceMoves(Long.numberOfTrailingZeros(friendly), moves);
+            if (!moves.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scores the current position by material and piece placement, blending
+     * middlegame and endgame values by how much material is left. The score is
+     * kept up to date as moves are made, so this is cheap to call.
+     *
+     * @return the score in centipawns from the point of view of the team to
+     * move: positive when that team is ahead
+     */
+    public int evaluate() {
+        int score = board.evaluate();
+        return turn == TeamColor.WHITE ? score : -score;
+    }
 
-                if (piece != null && piece.getTeamColor() == teamColor && !validMoves(pos).isEmpty()) {
-                    return false;
+    /**
+     * Copies this game, including its castling, en passant and repetition
+     * state, so the copy can be searched or played on independently.
+     *
+     * @return a new game in the same position
+     */
+    public ChessGame gameCopy() {
+        ChessGame copy = new ChessGame(board.boardCopy());
+        copy.turn = turn;
+        copy.castlingRights = castlingRights;
+        copy.enPassantSquare = enPassantSquare;
+        copy.halfmoveClock = halfmoveClock;
+        copy.fullmoveNumber = fullmoveNumber;
+        copy.history = history == null ? null : history.clone();
+        copy.historySize = historySize;
+        return copy;
+    }
+
+    // FEN letters indexed by piece code
+    private static final String FEN_PIECES = "KQBNRPkqbnrp";
+    private static final String FEN_CASTLING = "KQkq";
+
+    /**
+     * Builds a game from Forsyth-Edwards Notation, for example
+     * {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}. The
+     * fields after the piece placement may be left off: a missing side to move
+     * is white, missing castling and en passant fields are none, and missing
+     * clocks are 0 and 1.
+     * <p>
+     * Castling rights are kept only where the king and rook are still on their
+     * starting squares, and an en passant square only where a pawn can capture
+     * onto it, so a game loaded from FEN has the same position key as the same
+     * position reached by play.
+     *
+     * @param fen the position to load
+     * @return a new game in that position
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+        int row = 7;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw new IllegalArgumentException("bad FEN placement: " + fen);
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int code = FEN_PIECES.indexOf(c);
+                if (code < 0 || col > 7) {
+                    throw new IllegalArgumentException("bad FEN placement: " + fen);
                 }
+                board.setSquare(row * 8 + col++, code);
+            }
+            if (col > 8) {
+                throw new IllegalArgumentException("bad FEN placement: " + fen);
             }
         }
-        return true;
+        if (row != 0 || col != 8) {
+            throw new IllegalArgumentException("bad FEN placement: " + fen);
+        }
+        ChessGame game = new ChessGame(board);
+
+        //side to move
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            char side = fen.charAt(i++);
+            if (side != 'w' && side != 'b') {
+                throw new IllegalArgumentException("bad FEN side to move: " + fen);
+            }
+            game.turn = side == 'w' ? TeamColor.WHITE : TeamColor.BLACK;
+        }
+
+        //castling rights
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            int right = FEN_CASTLING.indexOf(c);
+            if (right < 0 && c != '-') {
+                throw new IllegalArgumentException("bad FEN castling rights: " + fen);
+            }
+            rights |= right < 0 ? 0 : 1 << right;
+        }
+        game.castlingRights = rights
+                & (game.homeRights(TeamColor.WHITE, WHITE_KING_HOME, WHITE_KINGSIDE, WHITE_QUEENSIDE)
+                | game.homeRights(TeamColor.BLACK, BLACK_KING_HOME, BLACK_KINGSIDE, BLACK_QUEENSIDE));
+
+        //en passant square
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i < length) {
+            if (i + 1 >= length || fen.charAt(i) < 'a' || fen.charAt(i) > 'h'
+                    || (fen.charAt(i + 1) != '3' && fen.charAt(i + 1) != '6')) {
+                throw new IllegalArgumentException("bad FEN en passant square: " + fen);
+            }
+            int square = (fen.charAt(i + 1) - '1') * 8 + fen.charAt(i) - 'a';
+            TeamColor enemy = opponent(game.turn);
+            if ((Attacks.PAWN[enemy.ordinal()][square] & board.pieces(game.turn, ChessPiece.PieceType.PAWN)) != 0) {
+                game.enPassantSquare = square;
+            }
+            i += 2;
+        }
+
+        //halfmove clock and fullmove number
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            int end = fieldEnd(fen, i);
+            game.halfmoveClock = parseCount(fen, i, end);
+            i = skipSpaces(fen, end);
+        }
+        if (i < length) {
+            int end = fieldEnd(fen, i);
+            game.fullmoveNumber = Math.max(1, parseCount(fen, i, end));
+            i = skipSpaces(fen, end);
+        }
+        if (i < length) {
+            throw new IllegalArgumentException("unexpected text after FEN: " + fen);
+        }
+        return game;
+    }
+
+    /**
+     * Writes the current position in Forsyth-Edwards Notation. The en passant
+     * field names a square only when a pawn can capture onto it.
+     *
+     * @return the position as a FEN string
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int code = board.pieceCodeAt(row * 8 + col);
+                if (code == ChessBoard.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(FEN_PIECES.charAt(code));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(turn == TeamColor.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < FEN_CASTLING.length(); right++) {
+            if ((castlingRights & 1 << right) != 0) {
+                fen.append(FEN_CASTLING.charAt(right));
+            }
+        }
+        fen.append(' ');
+        if (enPassantSquare == NO_SQUARE) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
+        }
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int fieldEnd(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseCount(String fen, int start, int end) {
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || count > 100_000) {
+                throw new IllegalArgumentException("bad FEN move count: " + fen);
+            }
+            count = count * 10 + c - '0';
+        }
+        return count;
     }
 
     /**
@@ -216,6 +701,95 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        //a new board has no move history, so allow any castling its kings and rooks are set up for
+        castlingRights = homeRights(TeamColor.WHITE, WHITE_KING_HOME, WHITE_KINGSIDE, WHITE_QUEENSIDE)
+                | homeRights(TeamColor.BLACK, BLACK_KING_HOME, BLACK_KINGSIDE, BLACK_QUEENSIDE);
+        enPassantSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        historySize = 0;
+    }
+
+    private int homeRights(TeamColor color, int home, int kingside, int queenside) {
+        if (board.pieceCodeAt(home) != ChessBoard.indexOf(color, ChessPiece.PieceType.KING)) {
+            return 0;
+        }
+        int rook = ChessBoard.indexOf(color, ChessPiece.PieceType.ROOK);
+        return (board.pieceCodeAt(home + 3) == rook ? kingside : 0)
+                | (board.pieceCodeAt(home - 4) == rook ? queenside : 0);
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the keys of the positions since the last capture or pawn move,
+     * oldest first
+     */
+    long[] getHistoryKeys() {
+        int start = Math.max(0, historySize - halfmoveClock);
+        return history == null ? new long[0] : Arrays.copyOfRange(history, start, historySize);
+    }
+
+    /**
+     * Restores the rules state saved from another game, without the checks
+     * FEN loading makes; used by {@link GameCodec}.
+     */
+    void restoreState(int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber,
+                      long[] historyKeys) {
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        restoreHistory(historyKeys);
+    }
+
+    private void restoreHistory(long[] historyKeys) {
+        this.history = Arrays.copyOf(historyKeys, Math.max(16, historyKeys.length));
+        this.historySize = historyKeys.length;
+    }
+
+    /**
+     * Determines if the game can be drawn under the fifty-move rule: fifty moves
+     * by each side without a capture or a pawn move.
+     *
+     * @return True if a hundred plies have passed since the last capture or pawn move
+     */
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Determines if the current position has now occurred three times, with the
+     * same side to move, castling rights and en passant square each time.
+     *
+     * @return True if the position has been repeated three times
+     */
+    public boolean isDrawByRepetition() {
+        long key = getPositionKey();
+        int count = 1;
+        //only positions since the last capture or pawn move can match, and only
+        //every other one has the same side to move
+        int oldest = Math.max(0, historySize - halfmoveClock);
+        for (int i = historySize - 2; i >= oldest; i -= 2) {
+            if (history[i] == key && ++count == 3) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -227,17 +801,75 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets a 64-bit Zobrist key for the current position (pieces, side to move,
+     * castling rights and en passant square). Equal positions always have equal
+     * keys, and the key is kept up to date as moves are made, so it is cheap
+     * enough to call after every move.
+     *
+     * @return the position key
+     */
+    public long getPositionKey() {
+        long key = board.zobristKey() ^ Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT[enPassantSquare & 7];
+        }
+        return turn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return turn == chessGame.turn && Objects.equals(board, chessGame.board);
+        return turn == chessGame.turn && castlingRights == chessGame.castlingRights
+                && enPassantSquare == chessGame.enPassantSquare && Objects.equals(board, chessGame.board);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(turn, board);
+        return Long.hashCode(getPositionKey());
+    }
+
+    /**
+     * Writes a game's fields as usual plus a {@code history} array of
+     * {@link #getHistoryKeys()}, and restores the history from it on reading.
+     * Games written while the whole history array was serialized, along with
+     * its {@code historySize}, are cut back to that size.
+     */
+    static class JsonCodec implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != ChessGame.class) {
+                return null;
+            }
+            TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+            TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+            return (TypeAdapter<T>) new TypeAdapter<ChessGame>() {
+                @Override
+                public void write(JsonWriter out, ChessGame game) throws IOException {
+                    JsonObject json = fields.toJsonTree(game).getAsJsonObject();
+                    json.add("history", gson.toJsonTree(game.getHistoryKeys()));
+                    elements.write(out, json);
+                }
+
+                @Override
+                public ChessGame read(JsonReader in) throws IOException {
+                    JsonObject json = elements.read(in).getAsJsonObject();
+                    ChessGame game = fields.fromJsonTree(json);
+                    if (json.has("history")) {
+                        long[] keys = gson.fromJson(json.get("history"), long[].class);
+                        if (json.has("historySize")) {
+                            keys = Arrays.copyOf(keys, Math.min(keys.length, json.get("historySize").getAsInt()));
+                        }
+                        game.restoreHistory(keys);
+                    }
+                    return game;
+                }
+            }.nullSafe();
+        }
     }
 }
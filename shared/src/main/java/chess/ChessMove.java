@@ -9,6 +9,32 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
+    // Every from/to pair without promotion, indexed by from * 64 + to, and every
+    // pawn promotion (one row forward onto the last row) indexed by
+    // (from * 64 + to) * 4 + the PROMOTIONS index of the piece.
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+    private static final ChessMove[] PLAIN_MOVES = new ChessMove[64 * 64];
+    private static final ChessMove[] PROMOTION_MOVES = new ChessMove[64 * 64 * PROMOTIONS.length];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                ChessPosition start = ChessPosition.of(from);
+                ChessPosition end = ChessPosition.of(to);
+                PLAIN_MOVES[from * 64 + to] = new ChessMove(start, end, null);
+                boolean whitePromotion = from / 8 == 6 && to / 8 == 7;
+                boolean blackPromotion = from / 8 == 1 && to / 8 == 0;
+                if ((whitePromotion || blackPromotion) && Math.abs(from % 8 - to % 8) <= 1) {
+                    for (int i = 0; i < PROMOTIONS.length; i++) {
+                        PROMOTION_MOVES[(from * 64 + to) * PROMOTIONS.length + i] = new ChessMove(start, end, PROMOTIONS[i]);
+                    }
+                }
+            }
+        }
+    }
+
     private final ChessPosition startPosition;
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
@@ -19,6 +45,47 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets a move without allocating when possible. Every on-board move, and
+     * every pawn promotion, is a shared precomputed instance; anything else
+     * (such as an off-board position) is created on demand.
+     *
+     * @return a move equal to {@code new ChessMove(startPosition, endPosition, promotionPiece)}
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        ChessMove move = null;
+        if (isOnBoard(startPosition) && isOnBoard(endPosition)) {
+            move = of(square(startPosition), square(endPosition), promotionPiece);
+        }
+        return move != null ? move : new ChessMove(startPosition, endPosition, promotionPiece);
+    }
+
+    /**
+     * @return the shared move between two ChessBoard square indexes, or null if
+     * the promotion is not one that is precomputed
+     */
+    static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        if (promotionPiece == null) {
+            return PLAIN_MOVES[from * 64 + to];
+        }
+        for (int i = 0; i < PROMOTIONS.length; i++) {
+            if (PROMOTIONS[i] == promotionPiece) {
+                return PROMOTION_MOVES[(from * 64 + to) * PROMOTIONS.length + i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean isOnBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    private static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -18,6 +18,27 @@ public class ChessPiece implements PieceMovesCalculator {
         this.type = type;
     }
 
+    // the 12 distinct pieces, indexed by [team][piece type]
+    private static final ChessPiece[][] PIECES = new ChessPiece[2][6];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                PIECES[color.ordinal()][pieceType.ordinal()] = new ChessPiece(color, pieceType);
+            }
+        }
+    }
+
+    /**
+     * Gets the shared instance of a piece. Pieces are immutable, so there is
+     * never a need for more than one of each.
+     *
+     * @return a piece equal to {@code new ChessPiece(pieceColor, type)}
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -52,150 +73,126 @@ public class ChessPiece implements PieceMovesCalculator {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        PieceMovesCalculator movesCalculator;
-        switch (type) {
-            case ROOK -> movesCalculator = new RookMoveCalc();
-            case BISHOP -> movesCalculator = new BishopMoveCalc();
-            case QUEEN -> movesCalculator = new QueenMoveCalc();
-            case KING -> movesCalculator = new KingMoveCalc();
-            case KNIGHT -> movesCalculator = new KnightMoveCalc();
-            case PAWN -> movesCalculator = new PawnMoveCalc();
-            default -> movesCalculator = new DefaultCalc();
-        }
-        return movesCalculator.pieceMoves(board, myPosition);
+        //moves are for this piece's team even if the board has something else on the square
+        MoveList moves = new MoveList(MoveGenerator.PIECE_MOVES_CAPACITY);
+        GENERATORS[type.ordinal()].generate(board, ChessBoard.squareOf(myPosition), pieceColor, moves);
+        return moves.toChessMoves();
     }
 
-    public interface PieceMovesCalculator {
-        Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition);
+    // one shared, stateless generator per piece type, indexed by PieceType ordinal
+    private static final MoveGenerator[] GENERATORS = new MoveGenerator[PieceType.values().length];
+
+    static {
+        GENERATORS[PieceType.ROOK.ordinal()] = new SlidingMoveCalc(Attacks.FIRST_ORTHOGONAL, Attacks.FIRST_DIAGONAL);
+        GENERATORS[PieceType.BISHOP.ordinal()] = new SlidingMoveCalc(Attacks.FIRST_DIAGONAL, Attacks.RAY_COUNT);
+        GENERATORS[PieceType.QUEEN.ordinal()] = new SlidingMoveCalc(Attacks.FIRST_ORTHOGONAL, Attacks.RAY_COUNT);
+        GENERATORS[PieceType.KING.ordinal()] = new JumpMoveCalc(Attacks.KING_TARGETS);
+        GENERATORS[PieceType.KNIGHT.ordinal()] = new JumpMoveCalc(Attacks.KNIGHT_TARGETS);
+        GENERATORS[PieceType.PAWN.ordinal()] = new PawnMoveCalc();
     }
 
-    public class RookMoveCalc implements PieceMovesCalculator {
-        @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-            return slideMoves(board, myPos, directions);
-        }
+    /**
+     * @return the shared move generator for a piece type
+     */
+    static MoveGenerator generatorFor(PieceType type) {
+        return GENERATORS[type.ordinal()];
     }
 
-    public class BishopMoveCalc implements PieceMovesCalculator {
-        @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            int[][] directions = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
-            return slideMoves(board, myPos, directions);
+    /**
+     * Rooks, bishops and queens: walk each of a range of precomputed rays until
+     * the board edge, a friendly piece, or a capture.
+     */
+    static final class SlidingMoveCalc implements MoveGenerator {
+        private final int firstRay;
+        private final int endRay;
+
+        SlidingMoveCalc(int firstRay, int endRay) {
+            this.firstRay = firstRay;
+            this.endRay = endRay;
         }
-    }
 
-    public class QueenMoveCalc implements PieceMovesCalculator {
         @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            int[][] directions = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-            return slideMoves(board, myPos, directions);
+        public void generate(ChessBoard board, int from, ChessGame.TeamColor color, MoveList moves) {
+            long own = board.occupancy(color);
+            long occupied = board.occupancy();
+            int[][] rays = Attacks.RAYS[from];
+            for (int ray = firstRay; ray < endRay; ray++) {
+                for (int to : rays[ray]) {
+                    long bit = 1L << to;
+                    if ((own & bit) != 0) {
+                        break;
+                    }
+                    moves.add(Move.encode(from, to));
+                    if ((occupied & bit) != 0) {
+                        break;
+                    }
+                }
+            }
         }
     }
 
-    public class KingMoveCalc implements PieceMovesCalculator {
-        @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            int[][] directions = {{1, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-            return jumpMoves(board, myPos, directions);
+    /**
+     * Kings and knights: every precomputed target square not holding a friendly piece.
+     */
+    static final class JumpMoveCalc implements MoveGenerator {
+        private final int[][] targets;
+
+        JumpMoveCalc(int[][] targets) {
+            this.targets = targets;
         }
-    }
 
-    public class KnightMoveCalc implements PieceMovesCalculator {
         @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            int[][] directions = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-            return jumpMoves(board, myPos, directions);
+        public void generate(ChessBoard board, int from, ChessGame.TeamColor color, MoveList moves) {
+            long own = board.occupancy(color);
+            for (int to : targets[from]) {
+                if ((own & (1L << to)) == 0) {
+                    moves.add(Move.encode(from, to));
+                }
+            }
         }
     }
 
-    public class PawnMoveCalc implements PieceMovesCalculator {
+    /**
+     * Pawns: a single push, a double push from the starting row, and diagonal
+     * captures, each promoting on the last row.
+     */
+    static final class PawnMoveCalc implements MoveGenerator {
         @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
-            Collection<ChessMove> moves = new ArrayList<>();
-
-            int promotionRow = (board.getPiece(myPos).pieceColor == WHITE) ? 8:1;
-            int row = myPos.getRow();
-            int col = myPos.getColumn();
-
-            if (pieceColor == ChessGame.TeamColor.BLACK) {
-                row -= 1;
-                // Check front
-                ChessPosition frontPos = new ChessPosition(row, col);
-                if (board.isInBounds(frontPos) && !board.isFriendly(myPos, frontPos) && !board.isEnemy(myPos, frontPos)) {
-                    addMoves(myPos, moves, row, frontPos, promotionRow);
-                }
-                // Attack Right
-                ChessPosition rightPos = new ChessPosition(row, col - 1);
-                if (board.isInBounds(rightPos) && board.isEnemy(myPos, rightPos)) {
-                    addMoves(myPos, moves, row, rightPos, promotionRow);
-                }
-
-                // Attack Left
-                ChessPosition leftPos = new ChessPosition(row, col + 1);
-                if (board.isInBounds(leftPos) && board.isEnemy(myPos, leftPos)) {
-                    addMoves(myPos, moves, row, leftPos, promotionRow);
-                }
-
-                // two-step
-                if (myPos.getRow() == 7) {
-                    row -= 1;
-                    ChessPosition checkPos = new ChessPosition(row, col);
-                    if (board.isInBounds(checkPos) && !board.isFriendly(myPos, checkPos) && !board.isEnemy(myPos, checkPos)
-                        && !board.isFriendly(myPos, frontPos) && !board.isEnemy(myPos, frontPos)) {
-                        moves.add(new ChessMove(myPos, checkPos, null));
-                    }
-                }
-            } else {
-                row += 1;
-                //Check Front
-                ChessPosition frontPos = new ChessPosition(row, col);
-                if (board.isInBounds(frontPos) && !board.isFriendly(myPos, frontPos) && !board.isEnemy(myPos, frontPos)) {
-                    addMoves(myPos, moves, row, frontPos, promotionRow);
-                }
-                //Attack Right
-                ChessPosition rightPos = new ChessPosition(row, col + 1);
-                if (board.isInBounds(rightPos) && board.isEnemy(myPos, rightPos)) {
-                    addMoves(myPos, moves, row, rightPos, promotionRow);
-                }
-                //Attack Left
-                ChessPosition leftPos = new ChessPosition(row, col - 1);
-                if (board.isInBounds(leftPos) && board.isEnemy(myPos, leftPos)) {
-                    addMoves(myPos, moves, row, leftPos, promotionRow);
-                }
-                // two-step
-                if (myPos.getRow() == 2) {
-                    row += 1;
-                    ChessPosition checkPos = new ChessPosition(row, col);
-                    if (board.isInBounds(checkPos) && !board.isFriendly(myPos, checkPos) && !board.isEnemy(myPos, checkPos)
-                        && !board.isFriendly(myPos, frontPos) && !board.isEnemy(myPos, frontPos)) {
-                        moves.add(new ChessMove(myPos, checkPos, null));
-                    }
+        public void generate(ChessBoard board, int from, ChessGame.TeamColor color, MoveList moves) {
+            boolean white = color == WHITE;
+            int forward = white ? 8 : -8;
+            int startRow = white ? 1 : 6;
+            int promotionRow = white ? 7 : 0;
+            long occupied = board.occupancy();
+
+            // Check front, then two-step from the starting row
+            int front = from + forward;
+            if (front >= 0 && front < ChessBoard.SQUARES && (occupied & (1L << front)) == 0) {
+                addMoves(moves, from, front, promotionRow);
+                int twoStep = front + forward;
+                if (from / 8 == startRow && (occupied & (1L << twoStep)) == 0) {
+                    addMoves(moves, from, twoStep, promotionRow);
                 }
             }
-            return moves;
+            // Attack left and right
+            long enemies = board.occupancy(white ? ChessGame.TeamColor.BLACK : WHITE);
+            for (long attacks = Attacks.PAWN[color.ordinal()][from] & enemies; attacks != 0; attacks &= attacks - 1) {
+                addMoves(moves, from, Long.numberOfTrailingZeros(attacks), promotionRow);
+            }
         }
 
-        private void addMoves(ChessPosition myPos, Collection<ChessMove> moves, int row, ChessPosition frontPos, int promotionRow) {
-            if (row == promotionRow) {
-                moves.add(new ChessMove(myPos, frontPos, PieceType.ROOK));
-                moves.add(new ChessMove(myPos, frontPos, PieceType.KNIGHT));
-                moves.add(new ChessMove(myPos, frontPos, PieceType.BISHOP));
-                moves.add(new ChessMove(myPos, frontPos, PieceType.QUEEN));
+        private void addMoves(MoveList moves, int from, int to, int promotionRow) {
+            if (to / 8 == promotionRow) {
+                moves.add(Move.encode(from, to, PieceType.ROOK));
+                moves.add(Move.encode(from, to, PieceType.KNIGHT));
+                moves.add(Move.encode(from, to, PieceType.BISHOP));
+                moves.add(Move.encode(from, to, PieceType.QUEEN));
             } else {
-                moves.add(new ChessMove(myPos, frontPos, null));
+                moves.add(Move.encode(from, to));
             }
         }
     }
 
-    public class DefaultCalc implements PieceMovesCalculator {
-
-        @Override
-        public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-            return List.of();
-        }
-    }
-
 
     @Override
     public String toString() {
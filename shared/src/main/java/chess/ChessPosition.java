@@ -9,6 +9,15 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    // the 64 on-board positions, indexed by ChessBoard square
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < SQUARES.length; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
     public ChessPosition(int row, int col) {
@@ -16,6 +25,28 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets a position without allocating: on-board positions are shared
+     * instances, and only off-board positions are created on demand.
+     *
+     * @param row 1 codes for the bottom row
+     * @param col 1 codes for the left column
+     * @return a position equal to {@code new ChessPosition(row, col)}
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + col - 1];
+    }
+
+    /**
+     * @return the shared position for a ChessBoard square index (0-63)
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -0,0 +1,172 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A compact binary form of a {@link ChessGame} for storage, about a tenth the
+ * size of its JSON.
+ * <p>
+ * Version 1 layout:
+ * <pre>
+ * byte  0      MAGIC
+ * byte  1      format version
+ * bytes 2-33   the board, 4 bits per square from a1 to h8, low nibble first:
+ *              0 for empty, otherwise the piece code plus one
+ * byte  34     bit 0 set when black is to move, bits 1-4 the castling rights,
+ *              bit 5 set when history keys follow
+ * byte  35     the en passant square plus one, 0 for none
+ * bytes 36-37  the halfmove clock
+ * bytes 38-39  the fullmove number
+ * then, only when flagged, a two byte count and that many eight byte
+ * position keys for detecting repetitions
+ * </pre>
+ * Multi-byte numbers are big-endian.
+ */
+public final class GameCodec {
+
+    /** The first byte of every encoded game, never the first byte of JSON text. */
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final int VERSION = 1;
+    public static final int BOARD_ONLY_LENGTH = 40;
+
+    private static final int BOARD_OFFSET = 2;
+    private static final int FLAGS_OFFSET = 34;
+    private static final int EN_PASSANT_OFFSET = 35;
+    private static final int HALFMOVE_OFFSET = 36;
+    private static final int FULLMOVE_OFFSET = 38;
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int HAS_HISTORY = 1 << 5;
+    private static final int MAX_HISTORY = 0xFFFF;
+
+    private GameCodec() {
+    }
+
+    /**
+     * Encodes a game, including the position keys needed to detect repetitions.
+     */
+    public static byte[] encode(ChessGame game) {
+        return encode(game, true);
+    }
+
+    /**
+     * Encodes a game.
+     *
+     * @param withHistory whether to include the earlier position keys; without
+     *                    them the result is always {@link #BOARD_ONLY_LENGTH} bytes
+     */
+    public static byte[] encode(ChessGame game, boolean withHistory) {
+        long[] history = withHistory ? game.getHistoryKeys() : new long[0];
+        if (history.length > MAX_HISTORY) {
+            history = Arrays.copyOfRange(history, history.length - MAX_HISTORY, history.length);
+        }
+        byte[] bytes = new byte[BOARD_ONLY_LENGTH + (history.length > 0 ? 2 + history.length * 8 : 0)];
+        bytes[0] = MAGIC;
+        bytes[1] = VERSION;
+
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < ChessBoard.SQUARES; square++) {
+            int nibble = board.pieceCodeAt(square) + 1;
+            bytes[BOARD_OFFSET + square / 2] |= (byte) (square % 2 == 0 ? nibble : nibble << 4);
+        }
+
+        int flags = game.getCastlingRights() << CASTLING_SHIFT;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (history.length > 0) {
+            flags |= HAS_HISTORY;
+        }
+        bytes[FLAGS_OFFSET] = (byte) flags;
+        bytes[EN_PASSANT_OFFSET] = (byte) (game.getEnPassantSquare() + 1);
+        putShort(bytes, HALFMOVE_OFFSET, Math.min(game.getHalfmoveClock(), 0xFFFF));
+        putShort(bytes, FULLMOVE_OFFSET, Math.min(game.getFullmoveNumber(), 0xFFFF));
+
+        if (history.length > 0) {
+            putShort(bytes, BOARD_ONLY_LENGTH, history.length);
+            for (int i = 0; i < history.length; i++) {
+                long key = history[i];
+                int offset = BOARD_ONLY_LENGTH + 2 + i * 8;
+                for (int b = 0; b < 8; b++) {
+                    bytes[offset + b] = (byte) (key >>> (56 - b * 8));
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return True if the data starts like an encoded game rather than JSON
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= 2 && bytes[0] == MAGIC;
+    }
+
+    /**
+     * Decodes a game written by {@link #encode}.
+     *
+     * @throws IllegalArgumentException if the data is not an encoded game or is
+     *                                  of a format version this code does not read
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (!isEncoded(bytes)) {
+            throw new IllegalArgumentException("not an encoded chess game");
+        }
+        if (bytes[1] != VERSION) {
+            throw new IllegalArgumentException("unsupported chess game format version: " + bytes[1]);
+        }
+        if (bytes.length < BOARD_ONLY_LENGTH) {
+            throw new IllegalArgumentException("encoded chess game is truncated");
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < ChessBoard.SQUARES; square++) {
+            int packed = bytes[BOARD_OFFSET + square / 2];
+            int nibble = (square % 2 == 0 ? packed : packed >>> 4) & 0xF;
+            if (nibble > 12) {
+                throw new IllegalArgumentException("bad piece in encoded chess game: " + nibble);
+            }
+            if (nibble != 0) {
+                board.setSquare(square, nibble - 1);
+            }
+        }
+
+        int flags = bytes[FLAGS_OFFSET];
+        long[] history = new long[0];
+        if ((flags & HAS_HISTORY) != 0) {
+            int count = getShort(bytes, BOARD_ONLY_LENGTH);
+            if (bytes.length < BOARD_ONLY_LENGTH + 2 + count * 8) {
+                throw new IllegalArgumentException("encoded chess game is truncated");
+            }
+            history = new long[count];
+            for (int i = 0; i < count; i++) {
+                int offset = BOARD_ONLY_LENGTH + 2 + i * 8;
+                long key = 0;
+                for (int b = 0; b < 8; b++) {
+                    key = key << 8 | bytes[offset + b] & 0xFF;
+                }
+                history[i] = key;
+            }
+        }
+
+        int enPassantSquare = (bytes[EN_PASSANT_OFFSET] & 0xFF) - 1;
+        if (enPassantSquare >= ChessBoard.SQUARES) {
+            throw new IllegalArgumentException("bad en passant square in encoded chess game");
+        }
+
+        ChessGame game = new ChessGame(board);
+        game.setTeamTurn((flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.restoreState(flags >>> CASTLING_SHIFT & ChessGame.ALL_CASTLING, enPassantSquare,
+                getShort(bytes, HALFMOVE_OFFSET), getShort(bytes, FULLMOVE_OFFSET), history);
+        return game;
+    }
+
+    private static void putShort(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 8);
+        bytes[offset + 1] = (byte) value;
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+    }
+}
@@ -0,0 +1,68 @@
+package chess;
+
+/**
+ * Packs a move into a single {@code int} so the move generator can work on
+ * primitive {@link MoveList}s instead of {@link ChessMove} objects. Search code
+ * outside this package reads packed moves through the public accessors.
+ * <p>
+ * Layout: bits 0-5 hold the start square, bits 6-11 the end square (see
+ * {@link ChessBoard} for square numbering), and bits 12-14 the promotion piece
+ * as {@code PieceType.ordinal() + 1} (0 for none). There are no flag bits:
+ * castling and en passant are recognised from the squares and pieces involved.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    static int encode(int from, int to) {
+        return from | to << TO_SHIFT;
+    }
+
+    static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        int move = encode(from, to);
+        return promotion == null ? move : move | (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if either position is off the board
+     */
+    public static int encode(ChessMove move) {
+        return encode(ChessBoard.squareOf(move.getStartPosition()), ChessBoard.squareOf(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    /**
+     * @return the promotion piece, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    /**
+     * @return the public form of a move, built from the shared instances
+     */
+    public static ChessMove toChessMove(int move) {
+        ChessPiece.PieceType promotion = promotion(move);
+        ChessMove chessMove = ChessMove.of(from(move), to(move), promotion);
+        return chessMove != null ? chessMove
+                : new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion);
+    }
+}
@@ -0,0 +1,38 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A move calculator that writes packed moves into a reusable {@link MoveList}.
+ * Move generation inside the package works on these; {@link #pieceMoves} only
+ * converts to ChessMoves for callers of the public API.
+ */
+interface MoveGenerator extends PieceMovesCalculator {
+
+    // enough for any one piece: a queen has at most 27 moves
+    int PIECE_MOVES_CAPACITY = 32;
+
+    /**
+     * Adds the moves a piece of the given team could make from a square to a
+     * list, without regard to whether they would leave its own king in check.
+     * The piece itself need not be on the board.
+     */
+    void generate(ChessBoard board, int from, ChessGame.TeamColor color, MoveList moves);
+
+    /**
+     * Calculates the moves of whichever piece stands on a square, or none if
+     * the square is empty.
+     */
+    @Override
+    default Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPos) {
+        int from = ChessBoard.squareOf(myPos);
+        ChessGame.TeamColor color = board.colorAt(from);
+        if (color == null) {
+            return new ArrayList<>();
+        }
+        MoveList moves = new MoveList(PIECE_MOVES_CAPACITY);
+        generate(board, from, color, moves);
+        return moves.toChessMoves();
+    }
+}
@@ -0,0 +1,81 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of packed {@link Move}s backed by an {@code int[]}. Lists are
+ * meant to be cleared and reused (one per search ply, say) so that generating
+ * moves allocates nothing.
+ */
+public final class MoveList {
+
+    // more than the most legal moves any chess position has
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from {@code newSize} on, as after filtering in place.
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the moves as ChessMoves, for handing across the public API
+     */
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Move.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+}
@@ -0,0 +1,114 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft on several threads. The move tree is split into one fork/join task per
+ * move until the subtrees are small, and each task walks its subtree on its own
+ * copy of the game, so the workers share nothing but an optional
+ * {@link PositionTable}.
+ * <p>
+ * Usage: {@code java chess.ParallelPerft [depth] [threads] [fen]}. Counts the
+ * position (the start position by default) with 1, 2, 4, ... threads up to
+ * {@code threads} (the number of processors by default) and prints the
+ * nodes/second and speedup at each.
+ */
+public final class ParallelPerft {
+
+    // subtrees this shallow are cheaper to walk than to split further
+    private static final int SPLIT_DEPTH = 3;
+
+    private ParallelPerft() {
+    }
+
+    /**
+     * Counts the leaf nodes below the current position like
+     * {@link Perft#perft(ChessGame, int)}, using a pool of the given size.
+     * The game itself is not changed.
+     *
+     * @param parallelism how many worker threads to count with
+     */
+    public static long perft(ChessGame game, int depth, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return perft(game, depth, pool, null);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts leaf nodes on an existing pool, optionally sharing a table of
+     * subtree counts between the workers.
+     */
+    static long perft(ChessGame game, int depth, ForkJoinPool pool, PositionTable table) {
+        return pool.invoke(new PerftTask(game.gameCopy(), depth, table));
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+        private final PositionTable table;
+
+        PerftTask(ChessGame game, int depth, PositionTable table) {
+            this.game = game;
+            this.depth = depth;
+            this.table = table;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SPLIT_DEPTH) {
+                return table == null ? Perft.perft(game, depth) : Perft.perft(game, depth, table);
+            }
+            MoveList moves = new MoveList();
+            game.legalMoves(moves);
+            List<PerftTask> subtasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                //each subtask plays its move on a copy it owns
+                ChessGame child = game.gameCopy();
+                child.doMoveUnchecked(moves.get(i));
+                subtasks.add(new PerftTask(child, depth - 1, table));
+            }
+            long nodes = 0;
+            for (PerftTask subtask : invokeAll(subtasks)) {
+                nodes += subtask.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String fen = args.length > 2 ? String.join(" ", List.of(args).subList(2, args.length)) : Perft.START_FEN;
+        ChessGame game = ChessGame.fromFen(fen);
+
+        //one untimed count first so the JIT has compiled the move generator
+        perft(game, Math.min(depth, 4), maxThreads);
+
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            long start = System.nanoTime();
+            long nodes = perft(game, depth, threads);
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            double rate = nodes / seconds;
+            if (threads == 1) {
+                baseline = rate;
+            }
+            System.out.printf("%3d threads: %,d nodes in %.3f s (%,.0f nodes/s, %.2fx)%n",
+                    threads, nodes, seconds, rate, rate / baseline);
+        }
+    }
+
+    // powers of two, ending on the processor count even when it is not one
+    private static int nextThreadCount(int threads, int maxThreads) {
+        if (threads == maxThreads) {
+            return maxThreads + 1;
+        }
+        return Math.min(threads * 2, maxThreads);
+    }
+}
@@ -0,0 +1,195 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance test ("perft") for the move generator: counts every leaf of the
+ * legal move tree to a fixed depth. The counts are compared against published
+ * values to prove move generation correct, and timing the walk gives a
+ * nodes/second figure for measuring move generation speed.
+ * <p>
+ * Usage: {@code java chess.Perft [depth] [divide] [hash] [fen]}. With no FEN
+ * the standard suite is run and checked, to every published depth unless a
+ * depth is given; with a FEN that position is counted, to depth
+ * {@value #DEFAULT_DEPTH} unless a depth is given. {@code divide} prints the
+ * node count under each root move, and {@code hash} caches subtree counts in
+ * a {@link PositionTable} so transpositions are only counted once.
+ */
+public final class Perft {
+
+    /**
+     * A published perft position and its node counts, where
+     * {@code expected[i]} is the count at depth {@code i + 1}.
+     */
+    public record PerftCase(String name, String fen, long... expected) {
+    }
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    public static final List<PerftCase> SUITE = List.of(
+            new PerftCase("start position", START_FEN, 20, 400, 8902, 197281),
+            new PerftCase("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862),
+            new PerftCase("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238),
+            new PerftCase("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467),
+            new PerftCase("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379),
+            new PerftCase("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890)
+    );
+
+    // depth a FEN given on the command line is counted to when none is given
+    static final int DEFAULT_DEPTH = 4;
+
+    // slots in the table used by the hash option, 24 bytes each
+    private static final int HASH_ENTRIES = 1 << 20;
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree below the current position.
+     * The game is changed while counting but is left as it was found.
+     *
+     * @param game  the position to count from
+     * @param depth how many plies to look ahead
+     * @return the number of positions reachable in exactly {@code depth} plies
+     */
+    public static long perft(ChessGame game, int depth) {
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists, null, new long[2]);
+    }
+
+    /**
+     * Counts leaf nodes like {@link #perft(ChessGame, int)}, looking up and
+     * storing the count below each position in a table. Positions reached by
+     * different move orders are then only walked once, and a table can be
+     * shared by counts running on several threads.
+     */
+    static long perft(ChessGame game, int depth, PositionTable table) {
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(game, depth, lists, table, new long[2]);
+    }
+
+    // one reusable move list per remaining depth, so the walk allocates nothing
+    private static long perft(ChessGame game, int depth, MoveList[] lists, PositionTable table, long[] entry) {
+        if (depth == 0) {
+            return 1;
+        }
+        //a table entry holds the node count above the depth it was counted to
+        long key = 0;
+        if (table != null && depth > 1) {
+            key = game.getPositionKey();
+            if (table.probe(key, entry) && (entry[0] & PositionTable.DEPTH_MASK) == depth) {
+                return entry[0] >>> PositionTable.DEPTH_BITS;
+            }
+        }
+        MoveList moves = lists[depth];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            // bulk count the last ply instead of making each move
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = game.doMoveUnchecked(move);
+            nodes += perft(game, depth - 1, lists, table, entry);
+            game.undoMoveUnchecked(move, undo);
+        }
+        if (table != null) {
+            table.store(key, nodes << PositionTable.DEPTH_BITS | depth, 0);
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits a perft count by root move, which is how a wrong count is narrowed
+     * down to the move generator bug behind it.
+     *
+     * @return the node count below each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        return divide(game, depth, null);
+    }
+
+    private static Map<ChessMove, Long> divide(ChessGame game, int depth, PositionTable table) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = game.doMoveUnchecked(move);
+            counts.put(Move.toChessMove(move), table == null ? perft(game, depth - 1)
+                    : perft(game, depth - 1, table));
+            game.undoMoveUnchecked(move, undo);
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        //the depth is optional; a FEN never starts with a bare number
+        boolean hasDepth = args.length > 0 && args[0].matches("\\d+");
+        int depth = hasDepth ? Integer.parseInt(args[0]) : 0;
+        int fenStart = hasDepth ? 1 : 0;
+        boolean divide = false;
+        PositionTable table = null;
+        for (; fenStart < args.length; fenStart++) {
+            if (args[fenStart].equals("divide")) {
+                divide = true;
+            } else if (args[fenStart].equals("hash")) {
+                table = new PositionTable(HASH_ENTRIES);
+            } else {
+                break;
+            }
+        }
+
+        if (args.length > fenStart) {
+            String fen = String.join(" ", List.of(args).subList(fenStart, args.length));
+            run(ChessGame.fromFen(fen), depth > 0 ? depth : DEFAULT_DEPTH, divide, table);
+            return;
+        }
+        boolean allPassed = true;
+        for (PerftCase perftCase : SUITE) {
+            System.out.println(perftCase.name() + ": " + perftCase.fen());
+            int maxDepth = depth > 0 ? Math.min(depth, perftCase.expected().length) : perftCase.expected().length;
+            for (int d = 1; d <= maxDepth; d++) {
+                long nodes = run(ChessGame.fromFen(perftCase.fen()), d, false, table);
+                if (nodes != perftCase.expected()[d - 1]) {
+                    System.out.println("  FAILED: expected " + perftCase.expected()[d - 1]);
+                    allPassed = false;
+                }
+            }
+        }
+        System.out.println(allPassed ? "all perft counts match" : "perft counts do not match");
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private static long run(ChessGame game, int depth, boolean divide, PositionTable table) {
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth, table).entrySet()) {
+                System.out.println("  " + entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = table == null ? perft(game, depth) : perft(game, depth, table);
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        System.out.printf("  depth %d: %,d nodes in %.3f s (%,.0f nodes/s)%n", depth, nodes, seconds, nodes / seconds);
+        return nodes;
+    }
+}
@@ -0,0 +1,103 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table from 64-bit position keys to two packed
+ * {@code long}s, safe to share between threads without locks.
+ * <p>
+ * Each slot is three {@code long}s in one flat array: a check word, the data
+ * word and the bitmap word. The check word is stored as
+ * {@code key ^ data ^ bitmap}, so a reader that sees a slot half written by
+ * another thread, or a slot belonging to a different key, gets a check that
+ * does not match and treats it as a miss. Writers never wait for each other;
+ * the last write to a slot wins.
+ * <p>
+ * The low {@link #DEPTH_BITS} bits of the data word are a depth. A store only
+ * replaces an entry for a different key when it is at least as deep, so
+ * expensive results are not pushed out by cheap ones.
+ */
+final class PositionTable {
+
+    static final int DEPTH_BITS = 8;
+    static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    private static final int SLOT_LONGS = 3;
+
+    private final long[] slots;
+    private final int mask;
+
+    /**
+     * @param entries the number of slots, rounded up to a power of two
+     */
+    PositionTable(int entries) {
+        if (entries < 1 || entries > 1 << 28) {
+            throw new IllegalArgumentException("table size out of range: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        if (size < entries) {
+            size <<= 1;
+        }
+        this.slots = new long[size * SLOT_LONGS];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position key
+     * @param out receives the data word in {@code out[0]} and the bitmap word in
+     *            {@code out[1]} on a hit; left alone on a miss
+     * @return True if the table holds an entry for the key
+     */
+    boolean probe(long key, long[] out) {
+        int slot = slotOf(key);
+        long check = slots[slot];
+        long data = slots[slot + 1];
+        long bitmap = slots[slot + 2];
+        //an empty slot reads as all zeros, which matches only a key of zero
+        if ((check ^ data ^ bitmap) != key || (check | data | bitmap) == 0) {
+            return false;
+        }
+        out[0] = data;
+        out[1] = bitmap;
+        return true;
+    }
+
+    /**
+     * Stores an entry for a position, unless its slot holds a deeper entry
+     * for another position.
+     *
+     * @param key    the position key
+     * @param data   the data word; its low {@link #DEPTH_BITS} bits are the depth
+     * @param bitmap the bitmap word
+     */
+    void store(long key, long data, long bitmap) {
+        int slot = slotOf(key);
+        long oldCheck = slots[slot];
+        long oldData = slots[slot + 1];
+        long oldBitmap = slots[slot + 2];
+        if ((oldCheck ^ oldData ^ oldBitmap) != key && (oldData & DEPTH_MASK) > (data & DEPTH_MASK)) {
+            return;
+        }
+        slots[slot] = key ^ data ^ bitmap;
+        slots[slot + 1] = data;
+        slots[slot + 2] = bitmap;
+    }
+
+    /**
+     * Empties every slot. Not atomic with respect to other threads' stores.
+     */
+    void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int slotOf(long key) {
+        //the low bits pick the slot; mix in the high bits so they count as well
+        return ((int) (key ^ key >>> 32) & mask) * SLOT_LONGS;
+    }
+}
@@ -0,0 +1,42 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per
+ * (piece, square) pair on the board, a key for black to move, one for the set
+ * of castling rights and one for the file of any en passant square, so a move
+ * updates it with a handful of XORs instead of rehashing the whole board.
+ * <p>
+ * The keys come from a fixed seed so a position hashes the same in every JVM.
+ */
+final class Zobrist {
+
+    // indexed like ChessBoard's bitboards: [team * 6 + piece type][square]
+    static final long[][] PIECE_SQUARE = new long[12][ChessBoard.SQUARES];
+    static final long BLACK_TO_MOVE;
+    // indexed by the ChessGame castling rights bit set
+    static final long[] CASTLING = new long[16];
+    // indexed by the file (0-7) of the en passant square
+    static final long[] EN_PASSANT = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x240C4E55L);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < keys.length; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        // no rights hashes to zero, so positions without castling keep their old keys
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,75 @@
+package engine;
+
+import chess.ChessGame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A computer opponent that picks moves by alpha-beta search.
+ * <p>
+ * Every search runs on its own copy of the game, so one engine can serve any
+ * number of games at once. {@link #searchAsync} runs searches on the engine's
+ * executor, which keeps them off the threads that handle requests and
+ * websocket messages.
+ */
+public class Engine implements AutoCloseable {
+
+    private final Executor executor;
+    // only set when the engine made its own executor and so must shut it down
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Creates an engine that searches on its own daemon threads, one per
+     * available processor.
+     */
+    public Engine() {
+        this.ownedExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "engine-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Creates an engine that runs asynchronous searches on the given executor.
+     */
+    public Engine(Executor executor) {
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+
+    /**
+     * Searches for the best move on the calling thread.
+     *
+     * @param game   the position to search; it is copied and not changed
+     * @param limits when to stop searching
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return new Searcher(game.gameCopy(), limits).search();
+    }
+
+    /**
+     * Searches for the best move on the engine's executor. The game is copied
+     * before this returns, so the caller may go on changing it.
+     *
+     * @param game   the position to search
+     * @param limits when to stop searching
+     * @return a future completed with the best move found and its score
+     */
+    public CompletableFuture<SearchResult> searchAsync(ChessGame game, SearchLimits limits) {
+        Searcher searcher = new Searcher(game.gameCopy(), limits);
+        return CompletableFuture.supplyAsync(searcher::search, executor);
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+}
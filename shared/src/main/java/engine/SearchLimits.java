@@ -0,0 +1,40 @@
+package engine;
+
+/**
+ * How far a search may go. The search stops at whichever limit it reaches
+ * first; a limit of zero means that limit is not used.
+ *
+ * @param maxDepth   the deepest iteration to search, in plies
+ * @param maxNodes   the most positions to visit
+ * @param timeMillis the longest to search for, in milliseconds
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long timeMillis) {
+
+    // deep enough to never be the limit that stops a timed search
+    static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (maxDepth < 0 || maxNodes < 0 || timeMillis < 0) {
+            throw new IllegalArgumentException("search limits cannot be negative");
+        }
+        if (maxDepth == 0 && maxNodes == 0 && timeMillis == 0) {
+            throw new IllegalArgumentException("at least one search limit is required");
+        }
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(0, maxNodes, 0);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, 0, timeMillis);
+    }
+
+    int depthLimit() {
+        return maxDepth == 0 ? MAX_DEPTH : Math.min(maxDepth, MAX_DEPTH);
+    }
+}
@@ -0,0 +1,36 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search: the move to play and what the search learned about
+ * the position.
+ *
+ * @param bestMove      the move to play, or null if the side to move has no legal moves
+ * @param score         the score of the position in centipawns from the side to move's
+ *                      point of view; see {@link #isMate()}
+ * @param depth         the deepest iteration that finished
+ * @param nodes         the number of positions visited
+ * @param elapsedMillis how long the search ran, in milliseconds
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis) {
+
+    /**
+     * @return True if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE - Searcher.MAX_PLY;
+    }
+
+    /**
+     * @return the number of moves until mate, negative when the side to move is
+     * being mated, or 0 if the score is not a mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Searcher.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+}
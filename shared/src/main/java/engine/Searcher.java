@@ -0,0 +1,304 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * One search of one position: iterative deepening over a principal variation
+ * search, with a quiescence search on captures at the leaves. A searcher owns
+ * its game and its tables, so it is used by a single thread and thrown away.
+ */
+class Searcher {
+
+    static final int MATE = 30_000;
+    static final int MAX_PLY = 128;
+    private static final int INFINITY = MATE + 1;
+
+    // rough piece values for ordering captures, indexed by PieceType ordinal:
+    // KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+    // the king is the cheapest piece to capture with, as it can never be recaptured
+    private static final int[] ATTACKER_ORDER = {0, 5, 3, 2, 4, 1};
+
+    // move ordering tiers; history scores stay below KILLER_SCORE
+    private static final int BEST_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 26;
+    private static final int HISTORY_LIMIT = KILLER_SCORE - 1;
+
+    // how many nodes go by between looks at the clock
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final ChessGame game;
+    private final ChessBoard board;
+    private final SearchLimits limits;
+    private final long deadline;
+    private final long startNanos;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] orderScores = new int[MAX_PLY + 1][];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // [side to move][from][to], bumped when a quiet move causes a cutoff
+    private final int[][][] history = new int[2][64][64];
+
+    private long nodes;
+    private boolean stopped;
+    private int rootBest;
+    private int rootBestScore;
+
+    Searcher(ChessGame game, SearchLimits limits) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.limits = limits;
+        this.startNanos = System.nanoTime();
+        this.deadline = limits.timeMillis() == 0 ? Long.MAX_VALUE : startNanos + limits.timeMillis() * 1_000_000;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            orderScores[ply] = new int[64];
+        }
+    }
+
+    SearchResult search() {
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis());
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= limits.depthLimit(); depth++) {
+            rootBest = bestMove;
+            rootBestScore = -INFINITY;
+            principalVariationSearch(depth, -INFINITY, INFINITY, 0);
+            if (stopped) {
+                break;
+            }
+            bestMove = rootBest;
+            bestScore = rootBestScore;
+            completedDepth = depth;
+            //a forced mate found at this depth will not get any shorter
+            if (Math.abs(bestScore) >= MATE - MAX_PLY) {
+                break;
+            }
+        }
+        return new SearchResult(Move.toChessMove(bestMove), bestScore, completedDepth, nodes, elapsedMillis());
+    }
+
+    private int principalVariationSearch(int depth, int alpha, int beta, int ply) {
+        if (ply > 0 && (game.isDrawByFiftyMoveRule() || game.isDrawByRepetition())) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            //look one ply further so checks are never cut off at the horizon
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, ply == 0 ? rootBest : Move.NONE);
+
+        int side = game.getTeamTurn().ordinal();
+        int best = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            boolean quiet = !isCapture(move) && Move.promotion(move) == null;
+            long undo = game.doMove(move);
+            int score;
+            if (i == 0) {
+                score = -principalVariationSearch(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                //prove the move is no better than the best so far with a null window,
+                //and only search it fully if that fails
+                score = -principalVariationSearch(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) {
+                    score = -principalVariationSearch(depth - 1, -beta, -alpha, ply + 1);
+                }
+            }
+            game.undoMove(move, undo);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (ply == 0) {
+                    rootBest = move;
+                    rootBestScore = score;
+                }
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                if (quiet) {
+                    rememberCutoff(move, side, depth, ply);
+                }
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions only until the position is quiet, so
+     * that a leaf is never scored in the middle of an exchange.
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return game.isInCheck(game.getTeamTurn()) ? -MATE + ply : 0;
+        }
+        int standPat = game.evaluate();
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        //keep only the captures and promotions
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isCapture(move) || Move.promotion(move) != null) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+        scoreMoves(moves, ply, Move.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            long undo = game.doMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            game.undoMove(move, undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a visited node and checks the search limits.
+     *
+     * @return True if the search has run out of nodes or time and must stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (limits.maxNodes() > 0 && nodes >= limits.maxNodes()) {
+            stopped = true;
+        } else if (nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Scores moves for ordering: the best move from the last iteration first,
+     * then captures by most valuable victim and least valuable attacker, then
+     * the killer moves for this ply, then quiet moves by history.
+     */
+    private void scoreMoves(MoveList moves, int ply, int bestMove) {
+        int[] scores = orderScores[ply];
+        if (scores.length < moves.size()) {
+            scores = orderScores[ply] = new int[moves.size()];
+        }
+        int side = game.getTeamTurn().ordinal();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            int to = Move.to(move);
+            int score;
+            if (move == bestMove) {
+                score = BEST_MOVE_SCORE;
+            } else if (isCapture(move) || Move.promotion(move) != null) {
+                ChessPiece victim = board.pieceAt(to);
+                int victimValue = victim == null ? PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()]
+                        : PIECE_VALUES[victim.getPieceType().ordinal()];
+                if (Move.promotion(move) != null) {
+                    victimValue += PIECE_VALUES[Move.promotion(move).ordinal()];
+                }
+                score = CAPTURE_SCORE + victimValue * 8 - ATTACKER_ORDER[board.pieceAt(from).getPieceType().ordinal()];
+            } else if (move == killers[ply][0] || move == killers[ply][1]) {
+                score = move == killers[ply][0] ? KILLER_SCORE + 1 : KILLER_SCORE;
+            } else {
+                score = history[side][from][to];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Swaps the best scoring move left in the list into position {@code i}.
+     * Picking one at a time is cheaper than sorting, since a cutoff usually
+     * comes after the first few moves.
+     */
+    private int nextMove(MoveList moves, int ply, int i) {
+        int[] scores = orderScores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(i));
+            moves.set(i, move);
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+        }
+        return moves.get(i);
+    }
+
+    private void rememberCutoff(int move, int side, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[side][Move.from(move)];
+        int to = Move.to(move);
+        fromHistory[to] = Math.min(fromHistory[to] + depth * depth, HISTORY_LIMIT);
+    }
+
+    private boolean isCapture(int move) {
+        if (board.pieceAt(Move.to(move)) != null) {
+            return true;
+        }
+        //a pawn changing file onto an empty square is capturing en passant
+        ChessPiece mover = board.pieceAt(Move.from(move));
+        return mover.getPieceType() == ChessPiece.PieceType.PAWN && (Move.from(move) & 7) != (Move.to(move) & 7);
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,64 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardJsonTests {
+    private final Gson gson = new Gson();
+
+    @Test
+    @DisplayName("json: a game round trips through its bitboards")
+    void roundTrips() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+
+        ChessGame loaded = gson.fromJson(gson.toJson(game), ChessGame.class);
+
+        assertEquals(game.getBoard(), loaded.getBoard());
+        assertEquals(game.validMoves(new ChessPosition(1, 5)), loaded.validMoves(new ChessPosition(1, 5)));
+    }
+
+    @Test
+    @DisplayName("json: a game saved with the old 8x8 board array still loads")
+    void readsLegacyBoard() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+
+        //the shape the baseline ChessGame was stored in: turn plus board.board[row - 1][column - 1]
+        JsonArray rows = new JsonArray();
+        for (int row = 1; row <= 8; row++) {
+            JsonArray columns = new JsonArray();
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    columns.add(JsonNull.INSTANCE);
+                } else {
+                    JsonObject json = new JsonObject();
+                    json.addProperty("pieceColor", piece.getTeamColor().name());
+                    json.addProperty("type", piece.getPieceType().name());
+                    columns.add(json);
+                }
+            }
+            rows.add(columns);
+        }
+        JsonObject board = new JsonObject();
+        board.add("board", rows);
+        JsonObject legacy = new JsonObject();
+        legacy.addProperty("turn", "BLACK");
+        legacy.add("board", board);
+
+        ChessGame loaded = gson.fromJson(legacy.toString(), ChessGame.class);
+
+        assertEquals(game.getBoard(), loaded.getBoard());
+        assertEquals(ChessGame.TeamColor.BLACK, loaded.getTeamTurn());
+        assertFalse(loaded.isInCheck(ChessGame.TeamColor.WHITE));
+        loaded.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        assertTrue(loaded.isInCheckmate(ChessGame.TeamColor.WHITE));
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DrawRuleTests {
+
+    @Test
+    @DisplayName("draw: third occurrence of a position is a repetition")
+    void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null)
+        };
+
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        assertFalse(game.isDrawByRepetition());
+
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        assertTrue(game.isDrawByRepetition());
+        assertFalse(game.isDrawByFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("draw: a pawn move resets the fifty-move count")
+    void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("7k/8/8/8/8/8/P7/K7 w - - 99 80");
+        assertFalse(game.isDrawByFiftyMoveRule());
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(1, 2), null));
+        assertTrue(game.isDrawByFiftyMoveRule());
+
+        game.makeMove(new ChessMove(new ChessPosition(8, 8), new ChessPosition(8, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+        assertFalse(game.isDrawByFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("draw: repetitions still count after a JSON round trip")
+    void repetitionAfterJson() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null)
+        };
+
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        String json = gson.toJson(game);
+        //only the keys that count, not the spare capacity behind them
+        assertEquals(4, gson.fromJson(json, JsonObject.class).getAsJsonArray("history").size());
+        game = gson.fromJson(json, ChessGame.class);
+
+        for (ChessMove move : shuffle) {
+            game.makeMove(move);
+        }
+        assertTrue(game.isDrawByRepetition());
+    }
+}
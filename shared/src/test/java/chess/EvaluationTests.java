@@ -0,0 +1,45 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("evaluate: the starting position is even")
+    void startIsEven() {
+        assertEquals(0, new ChessGame().evaluate());
+    }
+
+    @Test
+    @DisplayName("evaluate: incremental score matches a board rebuilt from scratch")
+    void incrementalMatchesRebuilt() {
+        ChessGame game = ChessGame.fromFen(Perft.SUITE.get(1).fen());
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 40; ply++) {
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.doMove(moves.get(ply * 7 % moves.size()));
+
+            ChessBoard rebuilt = new ChessBoard();
+            for (int square = 0; square < ChessBoard.SQUARES; square++) {
+                rebuilt.putPiece(square, game.getBoard().pieceAt(square));
+            }
+            int expected = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? rebuilt.evaluate() : -rebuilt.evaluate();
+            assertEquals(expected, game.evaluate(), "after ply " + ply);
+        }
+    }
+
+    @Test
+    @DisplayName("evaluate: scores favour the side with more material")
+    void materialAdvantage() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+
+        assertTrue(game.evaluate() > 400);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertTrue(game.evaluate() < -400);
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("fen: the starting position round trips")
+    void startPosition() {
+        ChessGame game = ChessGame.fromFen(Perft.START_FEN);
+
+        assertEquals(new ChessGame(), game);
+        assertEquals(new ChessGame().getPositionKey(), game.getPositionKey());
+        assertEquals(Perft.START_FEN, new ChessGame().toFen());
+    }
+
+    @Test
+    @DisplayName("fen: suite positions round trip")
+    void suiteRoundTrips() {
+        for (Perft.PerftCase perftCase : Perft.SUITE) {
+            assertEquals(perftCase.fen(), ChessGame.fromFen(perftCase.fen()).toFen(), perftCase.name());
+        }
+    }
+
+    @Test
+    @DisplayName("fen: played moves match the loaded position")
+    void matchesPlayedGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(6, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+
+        String fen = "rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3";
+        assertEquals(fen, game.toFen());
+        ChessGame loaded = ChessGame.fromFen(fen);
+        assertEquals(game, loaded);
+        assertEquals(game.getPositionKey(), loaded.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("fen: unusable castling and en passant fields are dropped")
+    void normalizesState() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K2R b KQkq e3 0 1");
+
+        assertEquals("4k3/8/8/8/4P3/8/8/4K2R b K - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("fen: missing fields take their defaults and bad input is rejected")
+    void defaultsAndErrors() {
+        assertEquals("8/8/8/8/8/8/8/K6k w - - 0 1", ChessGame.fromFen("8/8/8/8/8/8/8/K6k").toFen());
+
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K6x w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/K6k w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K7k w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K6k x - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen("8/8/8/8/8/8/8/K6k w - - 0 1 extra"));
+    }
+}
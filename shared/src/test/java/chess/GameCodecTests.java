@@ -0,0 +1,57 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("codec: a game without history is 40 bytes and round trips")
+    void boardOnly() {
+        for (Perft.PerftCase perftCase : Perft.SUITE) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+
+            byte[] bytes = GameCodec.encode(game, false);
+
+            assertEquals(GameCodec.BOARD_ONLY_LENGTH, bytes.length);
+            ChessGame decoded = GameCodec.decode(bytes);
+            assertEquals(game, decoded, perftCase.name());
+            assertEquals(game.toFen(), decoded.toFen(), perftCase.name());
+            assertEquals(game.getPositionKey(), decoded.getPositionKey(), perftCase.name());
+        }
+    }
+
+    @Test
+    @DisplayName("codec: history keys survive so repetitions are still detected")
+    void keepsHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null),
+                new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null),
+                new ChessMove(new ChessPosition(3, 3), new ChessPosition(1, 2), null),
+                new ChessMove(new ChessPosition(6, 3), new ChessPosition(8, 2), null)
+        };
+        for (ChessMove move : shuffle) {
+            game = GameCodec.decode(GameCodec.encode(game));
+            game.makeMove(move);
+        }
+        for (ChessMove move : shuffle) {
+            game = GameCodec.decode(GameCodec.encode(game));
+            game.makeMove(move);
+        }
+
+        assertTrue(game.isDrawByRepetition());
+    }
+
+    @Test
+    @DisplayName("codec: JSON and unknown versions are rejected")
+    void rejectsOtherData() {
+        byte[] bytes = GameCodec.encode(new ChessGame());
+
+        assertFalse(GameCodec.isEncoded("{\"turn\":\"WHITE\"}".getBytes()));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode("{}".getBytes()));
+        bytes[1] = 2;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(bytes));
+    }
+}
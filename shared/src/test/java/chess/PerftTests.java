@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("perft: suite node counts match the published values")
+    void suiteCounts() {
+        for (Perft.PerftCase perftCase : Perft.SUITE) {
+            for (int depth = 1; depth <= perftCase.expected().length; depth++) {
+                assertEquals(perftCase.expected()[depth - 1], Perft.perft(ChessGame.fromFen(perftCase.fen()), depth),
+                        perftCase.name() + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("perft: counting leaves the game unchanged")
+    void perftRestoresGame() {
+        ChessGame game = new ChessGame();
+        long key = game.getPositionKey();
+
+        Perft.perft(game, 3);
+
+        assertEquals(new ChessGame(), game);
+        assertEquals(key, game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("divide: per-move counts add up to the perft count")
+    void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+
+        var counts = Perft.divide(game, 3);
+
+        assertEquals(20, counts.size());
+        assertEquals(8902, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("parallel perft: matches the sequential counts and leaves the game unchanged")
+    void parallelMatchesSequential() {
+        for (Perft.PerftCase perftCase : Perft.SUITE) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            int depth = perftCase.expected().length;
+
+            assertEquals(perftCase.expected()[depth - 1], ParallelPerft.perft(game, depth, 4), perftCase.name());
+            assertEquals(ChessGame.fromFen(perftCase.fen()), game);
+        }
+    }
+
+    @Test
+    @DisplayName("make/unmake: moves that are not the side to move's are rejected")
+    void rejectsForeignMoves() {
+        ChessGame game = new ChessGame();
+        int emptySquare = Move.encode(ChessBoard.squareOf(new ChessPosition(4, 5)),
+                ChessBoard.squareOf(new ChessPosition(5, 5)));
+        int blackPawn = Move.encode(ChessBoard.squareOf(new ChessPosition(7, 5)),
+                ChessBoard.squareOf(new ChessPosition(5, 5)));
+        int ownCapture = Move.encode(ChessBoard.squareOf(new ChessPosition(1, 1)),
+                ChessBoard.squareOf(new ChessPosition(2, 1)));
+        int e4 = Move.encode(ChessBoard.squareOf(new ChessPosition(2, 5)),
+                ChessBoard.squareOf(new ChessPosition(4, 5)));
+
+        assertThrows(IllegalArgumentException.class, () -> game.doMove(emptySquare));
+        assertThrows(IllegalArgumentException.class, () -> game.doMove(blackPawn));
+        assertThrows(IllegalArgumentException.class, () -> game.doMove(ownCapture));
+        assertThrows(IllegalArgumentException.class, () -> game.undoMove(e4, 0));
+        assertEquals(new ChessGame(), game);
+
+        long undo = game.doMove(e4);
+        assertThrows(IllegalArgumentException.class, () -> game.undoMove(blackPawn, undo));
+        game.undoMove(e4, undo);
+        assertEquals(new ChessGame(), game);
+    }
+}
@@ -0,0 +1,38 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PieceMovesTests {
+
+    @Test
+    @DisplayName("pieceMoves: a piece not on the board moves as its own team")
+    void pieceNotOnBoard() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(4, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        ChessPosition square = new ChessPosition(4, 4);
+
+        //the black pawn on f4 can be taken by a white rook but blocks a black one
+        assertEquals(12, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK)
+                .pieceMoves(board, square).size());
+        assertEquals(11, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK)
+                .pieceMoves(board, square).size());
+        assertEquals(2, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN)
+                .pieceMoves(board, new ChessPosition(2, 5)).size());
+    }
+
+    @Test
+    @DisplayName("pieceMoves: a piece asked about another piece's square moves as its own team")
+    void pieceOnOtherSquare() {
+        ChessBoard board = new ChessBoard();
+        ChessPosition square = new ChessPosition(1, 1);
+        board.addPiece(square, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(2, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+
+        //a white king can take on b2; the black king on a1 could not
+        assertEquals(3, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)
+                .pieceMoves(board, square).size());
+        assertEquals(2, board.getPiece(square).pieceMoves(board, square).size());
+    }
+}
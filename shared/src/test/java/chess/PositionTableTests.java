@@ -0,0 +1,75 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionTableTests {
+
+    @Test
+    @DisplayName("table: stored entries are found only under their own key")
+    void storeAndProbe() {
+        PositionTable table = new PositionTable(1024);
+        long[] entry = new long[2];
+
+        table.store(0x1234_5678_9ABC_DEF0L, 42L << PositionTable.DEPTH_BITS | 3, 0xFF00L);
+
+        assertTrue(table.probe(0x1234_5678_9ABC_DEF0L, entry));
+        assertEquals(42L << PositionTable.DEPTH_BITS | 3, entry[0]);
+        assertEquals(0xFF00L, entry[1]);
+        assertFalse(table.probe(0x1234_5678_9ABC_DEF1L, entry));
+        assertFalse(table.probe(0, entry));
+    }
+
+    @Test
+    @DisplayName("table: a shallower entry does not replace a deeper one")
+    void depthPreferred() {
+        PositionTable table = new PositionTable(1);
+        long[] entry = new long[2];
+
+        table.store(1, 5, 0);
+        table.store(2, 4, 0);
+        assertTrue(table.probe(1, entry));
+        assertFalse(table.probe(2, entry));
+
+        table.store(3, 6, 0);
+        assertTrue(table.probe(3, entry));
+    }
+
+    @Test
+    @DisplayName("table: hashed perft matches the suite counts")
+    void hashedPerft() {
+        PositionTable table = new PositionTable(1 << 16);
+        for (Perft.PerftCase perftCase : Perft.SUITE) {
+            for (int depth = 1; depth <= perftCase.expected().length; depth++) {
+                assertEquals(perftCase.expected()[depth - 1], Perft.perft(ChessGame.fromFen(perftCase.fen()), depth, table),
+                        perftCase.name() + " at depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("table: one table can be shared by concurrent perft counts")
+    void sharedBetweenThreads() throws Exception {
+        PositionTable table = new PositionTable(1 << 12);
+        Perft.PerftCase kiwipete = Perft.SUITE.get(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                counts.add(executor.submit(() -> Perft.perft(ChessGame.fromFen(kiwipete.fen()), 3, table)));
+            }
+            for (Future<Long> count : counts) {
+                assertEquals(kiwipete.expected()[2], count.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
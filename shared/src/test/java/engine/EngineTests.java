@@ -0,0 +1,109 @@
+package engine;
+
+import chess.*;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTests {
+
+    private static ChessGame position(String board, ChessGame.TeamColor turn) {
+        ChessBoard chessBoard = new ChessBoard();
+        String[] rows = board.strip().split("\n");
+        for (int i = 0; i < 8; i++) {
+            String row = rows[i].replace("|", "");
+            for (int col = 1; col <= 8; col++) {
+                char c = row.charAt(col - 1);
+                if (c == ' ') {
+                    continue;
+                }
+                ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+                    case 'k' -> ChessPiece.PieceType.KING;
+                    case 'q' -> ChessPiece.PieceType.QUEEN;
+                    case 'r' -> ChessPiece.PieceType.ROOK;
+                    case 'b' -> ChessPiece.PieceType.BISHOP;
+                    case 'n' -> ChessPiece.PieceType.KNIGHT;
+                    default -> ChessPiece.PieceType.PAWN;
+                };
+                chessBoard.addPiece(new ChessPosition(8 - i, col), new ChessPiece(
+                        Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK, type));
+            }
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(chessBoard);
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    @Test
+    @DisplayName("engine: finds a back rank mate in one")
+    void mateInOne() {
+        ChessGame game = position("""
+                |      k |
+                |     ppp|
+                |        |
+                |        |
+                |        |
+                |        |
+                |     PPP|
+                |R     K |
+                """, ChessGame.TeamColor.WHITE);
+
+        SearchResult result = new Engine(Runnable::run).search(game, SearchLimits.depth(3));
+
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("engine: takes a hanging queen")
+    void winsMaterial() {
+        ChessGame game = position("""
+                |    k   |
+                |        |
+                |        |
+                |   q    |
+                |        |
+                |    N   |
+                |        |
+                |    K   |
+                """, ChessGame.TeamColor.WHITE);
+
+        SearchResult result = new Engine(Runnable::run).search(game, SearchLimits.depth(2));
+
+        assertEquals(new ChessMove(new ChessPosition(3, 5), new ChessPosition(5, 4), null), result.bestMove());
+        assertTrue(result.score() > 200);
+    }
+
+    @Test
+    @DisplayName("engine: stops at the node budget and leaves the game unchanged")
+    void nodeBudget() throws Exception {
+        ChessGame game = new ChessGame();
+        try (Engine engine = new Engine()) {
+            SearchResult result = engine.searchAsync(game, SearchLimits.nodes(5_000)).get(10, TimeUnit.SECONDS);
+
+            assertNotNull(result.bestMove());
+            assertTrue(result.nodes() <= 5_000);
+            assertEquals(new ChessGame(), game);
+        }
+    }
+
+    @Test
+    @DisplayName("engine: no move when the side to move is checkmated")
+    void noMoveWhenMated() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        SearchResult result = new Engine(Runnable::run).search(game, SearchLimits.time(1_000));
+
+        assertNull(result.bestMove());
+        assertTrue(result.isMate());
+        assertTrue(result.score() < 0);
+    }
+}